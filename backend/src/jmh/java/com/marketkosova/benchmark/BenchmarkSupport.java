@@ -0,0 +1,145 @@
+package com.marketkosova.benchmark;
+
+import com.marketkosova.MarketKosovaApplication;
+import com.marketkosova.entity.Category;
+import com.marketkosova.entity.Listing;
+import com.marketkosova.entity.Role;
+import com.marketkosova.entity.User;
+import com.marketkosova.security.JwtUtil;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+final class BenchmarkSupport {
+
+    static final String JWT_SECRET =
+            "MarketKosovaSecretKey2024SuperSecureJWTTokenSigningKeyThatIsLongEnough256Bits!!";
+
+    private static final String[] CATEGORIES = {
+            "Electronics", "Vehicles", "Real Estate", "Clothing", "Furniture", "Services", "Other"};
+    private static final String[] LOCATIONS = {
+            "Prishtinë", "Prizren", "Ferizaj", "Pejë", "Gjakovë", "Gjilan", "Mitrovicë", "Podujevë"};
+
+    private BenchmarkSupport() {
+    }
+
+    static JwtUtil jwtUtil(long expirationMillis) {
+        JwtUtil jwtUtil = new JwtUtil();
+        setField(jwtUtil, "secret", JWT_SECRET);
+        setField(jwtUtil, "expiration", expirationMillis);
+        Method init = ReflectionUtils.findMethod(JwtUtil.class, "init");
+        ReflectionUtils.makeAccessible(init);
+        ReflectionUtils.invokeMethod(init, jwtUtil);
+        return jwtUtil;
+    }
+
+    /**
+     * Starts the application without a web server on the {@code test} profile, so the
+     * schema comes from the Flyway migrations, in an in-memory H2 database of its own.
+     * Extra arguments override the defaults.
+     */
+    static ConfigurableApplicationContext h2Application(String name, String... extraArgs) {
+        // Passed as command line arguments so they override application.properties
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.profiles.active=test",
+                "--spring.datasource.url=jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--app.jobs.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.marketkosova=WARN"));
+        for (String extra : extraArgs) {
+            // Spring joins repeated options into one comma separated value, so drop the default
+            int separator = extra.indexOf('=');
+            if (separator > 0) {
+                String option = extra.substring(0, separator + 1);
+                args.removeIf(arg -> arg.startsWith(option));
+            }
+            args.add(extra);
+        }
+        return new SpringApplicationBuilder(MarketKosovaApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Makes categories {@code 1..count} exist as "Category n", replacing the ones the
+     * migrations seed.
+     */
+    static void categories(JdbcTemplate jdbc, int count) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            rows.add(new Object[]{i, "Category " + i});
+        }
+        jdbc.batchUpdate("MERGE INTO categories (id, name) KEY (id) VALUES (?, ?)", rows);
+    }
+
+    static UserDetails userDetails(String username) {
+        return new org.springframework.security.core.userdetails.User(
+                username, "n/a", Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    static List<Listing> listings(int count, long seed) {
+        Random random = new Random(seed);
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            categories.add(Category.builder().id((long) i + 1).name(CATEGORIES[i]).build());
+        }
+
+        List<Listing> listings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = User.builder()
+                    .id((long) random.nextInt(10_000))
+                    .username("seller" + random.nextInt(10_000))
+                    .email("seller@example.com")
+                    .password("n/a")
+                    .role(Role.USER)
+                    .build();
+            listings.add(Listing.builder()
+                    .id((long) i + 1)
+                    .title("Listing " + i + " in great condition")
+                    .description(description(random))
+                    .price(BigDecimal.valueOf(random.nextInt(500_000), 2))
+                    .location(LOCATIONS[random.nextInt(LOCATIONS.length)])
+                    .image(random.nextBoolean() ? "d5078a06-0156-40d8-9c13-e0af34e7f0ae.png" : null)
+                    .createdAt(LocalDateTime.now().minusMinutes(random.nextInt(100_000)))
+                    .latitude(42.0 + random.nextDouble())
+                    .longitude(20.3 + random.nextDouble())
+                    .user(user)
+                    .category(categories.get(random.nextInt(categories.size())))
+                    .build());
+        }
+        return listings;
+    }
+
+    static String description(Random random) {
+        // Typical descriptions are a few hundred characters
+        StringBuilder sb = new StringBuilder();
+        int sentences = 2 + random.nextInt(8);
+        for (int i = 0; i < sentences; i++) {
+            sb.append("Well maintained item, used for ").append(random.nextInt(36))
+                    .append(" months, pickup possible or delivery across Kosovo. ");
+        }
+        return sb.toString();
+    }
+
+    static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalArgumentException("No field " + name + " on " + target.getClass());
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,108 @@
+package com.marketkosova.benchmark;
+
+import com.marketkosova.dto.ConversationResponse;
+import com.marketkosova.service.MessageService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MessageService#getOrCreateConversation} from many threads clicking "Message
+ * seller" on the same few listings. Every iteration starts without conversations, so
+ * its first calls race to create each one. Doubles as a concurrency check: a call that
+ * fails, or that returns a different conversation than another call for the same buyer
+ * and listing, fails the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class ConversationCreateBenchmark {
+
+    private static final int BUYERS = 16;
+
+    // 8 listings: all threads fight over a handful of keys; 5000: mostly first contacts
+    @Param({"8", "5000"})
+    private int listings;
+
+    private ConfigurableApplicationContext context;
+    private MessageService messageService;
+    private JdbcTemplate jdbc;
+
+    // buyer/listing -> conversation id returned by the first call in this iteration
+    private final ConcurrentHashMap<Long, Long> conversationIds = new ConcurrentHashMap<>();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkSupport.h2Application("create" + listings);
+        jdbc = context.getBean(JdbcTemplate.class);
+        messageService = context.getBean(MessageService.class);
+        seed();
+    }
+
+    @Setup(Level.Iteration)
+    public void clearConversations() {
+        jdbc.update("DELETE FROM conversations");
+        conversationIds.clear();
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify() {
+        Integer rows = jdbc.queryForObject("SELECT COUNT(*) FROM conversations", Integer.class);
+        if (rows == null || rows != conversationIds.size()) {
+            throw new IllegalStateException(rows + " conversations stored for "
+                    + conversationIds.size() + " buyer/listing pairs");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ConversationResponse getOrCreateConversation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Buyers are user2..user(BUYERS + 1); every listing belongs to user1
+        int buyer = 2 + random.nextInt(BUYERS);
+        long listingId = 1 + random.nextInt(listings);
+        ConversationResponse response = messageService.getOrCreateConversation(listingId, "user" + buyer);
+
+        Long first = conversationIds.putIfAbsent(listingId * (BUYERS + 2) + buyer, response.getId());
+        if (first != null && !first.equals(response.getId())) {
+            throw new IllegalStateException("user" + buyer + " got conversations " + first + " and "
+                    + response.getId() + " for listing " + listingId);
+        }
+        return response;
+    }
+
+    private void seed() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        BenchmarkSupport.categories(jdbc, 1);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= BUYERS + 1; i++) {
+            rows.add(new Object[]{i, "user" + i, "user" + i + "@example.com", "n/a", "USER", now});
+        }
+        jdbc.batchUpdate("INSERT INTO users (id, username, email, password, role, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", rows);
+
+        rows.clear();
+        for (int i = 1; i <= listings; i++) {
+            rows.add(new Object[]{i, "Listing " + i, "For sale", 10.0, "Prishtinë", now, 1, 1});
+        }
+        jdbc.batchUpdate("INSERT INTO listings (id, title, description, price, location, created_at, " +
+                "user_id, category_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+}
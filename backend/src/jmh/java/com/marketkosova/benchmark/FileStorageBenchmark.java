@@ -0,0 +1,55 @@
+package com.marketkosova.benchmark;
+
+import com.marketkosova.service.FileStorageService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileStorageBenchmark {
+
+    @Param({"65536", "1048576", "5242880"})
+    private int bytes;
+
+    private Path uploadDir;
+    private FileStorageService fileStorageService;
+    private MockMultipartFile file;
+    private String lastStored;
+
+    @Setup
+    public void setUp() throws IOException {
+        uploadDir = Files.createTempDirectory("marketkosova-bench-uploads");
+        fileStorageService = new FileStorageService(uploadDir.toString());
+        byte[] content = new byte[bytes];
+        new Random(7).nextBytes(content);
+        file = new MockMultipartFile("imageFile", "photo.jpg", "image/jpeg", content);
+    }
+
+    @Benchmark
+    public String storeFile() {
+        lastStored = fileStorageService.storeFile(file);
+        return lastStored;
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteStored() {
+        // Keeps the disk from filling up; the delete is not part of the measurement
+        fileStorageService.deleteFile(lastStored);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(uploadDir);
+    }
+}
@@ -0,0 +1,38 @@
+package com.marketkosova.benchmark;
+
+import com.marketkosova.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = BenchmarkSupport.jwtUtil(900_000);
+        userDetails = BenchmarkSupport.userDetails("benchmark-user");
+        token = jwtUtil.generateToken(userDetails, 1L);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtUtil.generateToken(userDetails, 1L);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return jwtUtil.extractAllClaims(token);
+    }
+}
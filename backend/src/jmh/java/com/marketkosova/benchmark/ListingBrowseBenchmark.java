@@ -0,0 +1,113 @@
+package com.marketkosova.benchmark;
+
+import com.marketkosova.dto.ListingResponse;
+import com.marketkosova.repository.ListingRepository;
+import com.marketkosova.repository.ListingViewRepository;
+import com.marketkosova.service.ListingMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Browse reads through the entities ({@code entities}: JPA query, hydration, lazy
+ * associations and {@link ListingMapper}) against the {@code listing_view} read model
+ * ({@code view}: one JDBC query mapped straight to responses).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingBrowseBenchmark {
+
+    private static final int USERS = 500;
+    static final int LISTINGS = 20_000;
+    static final int CATEGORIES = 7;
+
+    @Param({"entities", "view"})
+    private String source;
+
+    private ConfigurableApplicationContext context;
+    private ListingRepository listingRepository;
+    private ListingViewRepository listingViewRepository;
+    private ListingMapper listingMapper;
+    private TransactionTemplate requestScope;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkSupport.h2Application("browse" + source);
+        seed(context.getBean(JdbcTemplate.class));
+        listingRepository = context.getBean(ListingRepository.class);
+        listingViewRepository = context.getBean(ListingViewRepository.class);
+        listingMapper = context.getBean(ListingMapper.class);
+        // Stands in for open-session-in-view, which serves the entity path's lazy loads
+        requestScope = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        requestScope.setReadOnly(true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ListingResponse> byCategory() {
+        long categoryId = 1 + ThreadLocalRandom.current().nextInt(CATEGORIES);
+        if (source.equals("view")) {
+            return listingViewRepository.findByCategoryNewestFirst(categoryId);
+        }
+        return requestScope.execute(status -> listingRepository
+                .findByCategoryIdOrderByCreatedAtDesc(categoryId, Pageable.unpaged())
+                .stream()
+                .map(listingMapper::toResponse)
+                .toList());
+    }
+
+    @Benchmark
+    public ListingResponse byId() {
+        long id = 1 + ThreadLocalRandom.current().nextInt(LISTINGS);
+        if (source.equals("view")) {
+            return listingViewRepository.findById(id).orElseThrow();
+        }
+        return requestScope.execute(status -> listingMapper.toResponse(listingRepository.findById(id).orElseThrow()));
+    }
+
+    /**
+     * Seeds {@value #LISTINGS} listings over {@value #CATEGORIES} categories, copied into {@code listing_view}.
+     */
+    static void seed(JdbcTemplate jdbc) {
+        Random random = new Random(1);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        BenchmarkSupport.categories(jdbc, CATEGORIES);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            rows.add(new Object[]{i, "user" + i, "user" + i + "@example.com", "n/a", "USER", now});
+        }
+        jdbc.batchUpdate("INSERT INTO users (id, username, email, password, role, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", rows);
+
+        rows.clear();
+        for (int i = 1; i <= LISTINGS; i++) {
+            rows.add(new Object[]{i, "Listing " + i, BenchmarkSupport.description(random),
+                    random.nextInt(100_000) / 100.0, "Prishtinë", new Timestamp(now.getTime() - i * 60_000L),
+                    (i % USERS) + 1, (i % CATEGORIES) + 1});
+        }
+        jdbc.batchUpdate("INSERT INTO listings (id, title, description, price, location, created_at, " +
+                "user_id, category_id, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)", rows);
+        jdbc.update(ListingViewRepository.COPY_FROM_LISTINGS_SQL, 0);
+    }
+}
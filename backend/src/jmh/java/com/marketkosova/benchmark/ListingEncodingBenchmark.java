@@ -0,0 +1,77 @@
+package com.marketkosova.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketkosova.dto.ListingResponse;
+import com.marketkosova.dto.ListingView;
+import com.marketkosova.entity.Listing;
+import com.marketkosova.service.ListingMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding cost of a listing page per wire format and view, with and without gzip as applied by
+ * server compression. Payload sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingEncodingBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"full", "summary"})
+    private String view;
+
+    @Param({"100"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<ListingResponse> responses;
+
+    @Setup
+    public void setUp() {
+        objectMapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        ListingMapper mapper = new ListingMapper();
+        List<ListingResponse> full = new ArrayList<>(size);
+        for (Listing listing : BenchmarkSupport.listings(size, 42)) {
+            full.add(mapper.toResponse(listing));
+        }
+        responses = mapper.toView(full, ListingView.from(view));
+    }
+
+    @TearDown
+    public void printSizes() throws IOException {
+        System.out.printf("%n%s/%s: %d bytes, %d bytes gzipped%n",
+                format, view, encode().length, encodeGzip().length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public byte[] encodeGzip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            objectMapper.writeValue(gzip, responses);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,120 @@
+package com.marketkosova.benchmark;
+
+import com.marketkosova.catalog.ListingCatalog;
+import com.marketkosova.dto.*;
+import com.marketkosova.service.ListingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@link ListingService#filterListings} without text filters, answered by the repository
+ * queries ({@code catalog=false}) or by {@link ListingCatalog} ({@code catalog=true}).
+ * With the catalog, setup first checks a few hundred random filters against the
+ * repository path and fails on any difference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingFilterBenchmark {
+
+    private static final int CHECKED_FILTERS = 300;
+    // Every seeded listing has this location; filtering on it forces the repository path
+    private static final String SEEDED_LOCATION = "Prishtinë";
+
+    @Param({"false", "true"})
+    private boolean catalog;
+
+    private ConfigurableApplicationContext context;
+    private ListingService listingService;
+    private TransactionTemplate requestScope;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkSupport.h2Application("filter" + catalog, "--app.catalog.enabled=" + catalog);
+        ListingBrowseBenchmark.seed(context.getBean(JdbcTemplate.class));
+        // The startup build ran before the seed
+        context.getBean(ListingCatalog.class).rebuild();
+        listingService = context.getBean(ListingService.class);
+        requestScope = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        requestScope.setReadOnly(true);
+        if (catalog) {
+            verifyAgainstRepository();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ListingSearchResponse filter() {
+        ListingFilterRequest filter = randomFilter(ThreadLocalRandom.current());
+        return requestScope.execute(status -> listingService.filterListings(filter));
+    }
+
+    private void verifyAgainstRepository() {
+        Random random = new Random(7);
+        for (int i = 0; i < CHECKED_FILTERS; i++) {
+            ListingFilterRequest filter = randomFilter(random);
+            ListingSearchResponse fromCatalog = requestScope.execute(status -> listingService.filterListings(filter));
+            filter.setLocation(SEEDED_LOCATION);
+            ListingSearchResponse fromRepository = requestScope.execute(status -> listingService.filterListings(filter));
+
+            if (!ids(fromCatalog).equals(ids(fromRepository))
+                    || fromCatalog.getTotalElements() != fromRepository.getTotalElements()
+                    || !facets(fromCatalog).equals(facets(fromRepository))
+                    || !buckets(fromCatalog).equals(buckets(fromRepository))) {
+                throw new IllegalStateException("Catalog and repository disagree for categories="
+                        + filter.getCategoryIds() + " price=" + filter.getMinPrice() + ".." + filter.getMaxPrice()
+                        + " sort=" + filter.getSort() + " page=" + filter.getPage());
+            }
+        }
+    }
+
+    private static ListingFilterRequest randomFilter(Random random) {
+        ListingFilterRequest filter = new ListingFilterRequest();
+        int categories = random.nextInt(3);
+        if (categories > 0) {
+            filter.setCategoryIds(random.ints(categories, 1, ListingBrowseBenchmark.CATEGORIES + 1)
+                    .mapToObj(Long::valueOf).toList());
+        }
+        if (random.nextBoolean()) {
+            int min = random.nextInt(800);
+            filter.setMinPrice(BigDecimal.valueOf(min));
+            filter.setMaxPrice(BigDecimal.valueOf(min + 1 + random.nextInt(200)));
+        }
+        ListingSort[] sorts = ListingSort.values();
+        filter.setSort(sorts[random.nextInt(sorts.length)].name());
+        filter.setPage(random.nextInt(5));
+        filter.setSize(20);
+        return filter;
+    }
+
+    private static List<Long> ids(ListingSearchResponse response) {
+        return response.getListings().stream().map(ListingResponse::getId).toList();
+    }
+
+    private static Map<Long, Long> facets(ListingSearchResponse response) {
+        return response.getCategoryFacets().stream()
+                .collect(Collectors.toMap(CategoryFacetResponse::getCategoryId, CategoryFacetResponse::getCount));
+    }
+
+    private static List<Long> buckets(ListingSearchResponse response) {
+        return response.getPriceBuckets().stream().map(PriceBucketResponse::getCount).toList();
+    }
+}
@@ -0,0 +1,64 @@
+package com.marketkosova.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketkosova.dto.ListingResponse;
+import com.marketkosova.entity.Listing;
+import com.marketkosova.service.ListingMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping and JSON encoding of listing pages, as done by the browse endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingSerializationBenchmark {
+
+    @Param({"20", "100", "1000"})
+    private int size;
+
+    private List<Listing> listings;
+    private List<ListingResponse> responses;
+    private ListingMapper mapper;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        listings = BenchmarkSupport.listings(size, 42);
+        mapper = new ListingMapper();
+        // Same defaults as the ObjectMapper Spring Boot configures for MVC
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        responses = mapAll();
+    }
+
+    @Benchmark
+    public List<ListingResponse> mapToResponse() {
+        return mapAll();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(mapAll());
+    }
+
+    private List<ListingResponse> mapAll() {
+        List<ListingResponse> result = new ArrayList<>(listings.size());
+        for (Listing listing : listings) {
+            result.add(mapper.toResponse(listing));
+        }
+        return result;
+    }
+}
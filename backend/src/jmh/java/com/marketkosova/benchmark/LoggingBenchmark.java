@@ -0,0 +1,84 @@
+package com.marketkosova.benchmark;
+
+import com.marketkosova.dto.MessageResponse;
+import com.marketkosova.security.AuthenticatedUser;
+import com.marketkosova.service.MessageService;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MessageService#sendMessage} throughput under the logging setups of
+ * {@code logback-spring.xml}: {@code dev} (synchronous console, DEBUG),
+ * {@code prod-debug} (JSON through the async queue with sampling, DEBUG) and
+ * {@code prod} (the same at INFO). {@code log} is the message-sent log line on its
+ * own, without the database work around it. Console output goes to a temporary
+ * file so the writes are real but stay out of the JMH output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private static final int CONVERSATIONS = 100;
+    private static final AuthenticatedUser SENDER = new AuthenticatedUser(1L, "user1");
+    private static final Logger MESSAGE_LOG = LoggerFactory.getLogger(MessageService.class);
+
+    @Param({"dev", "prod-debug", "prod"})
+    private String logging;
+
+    private ConfigurableApplicationContext context;
+    private MessageService messageService;
+    private PrintStream console;
+    private Path output;
+
+    @Setup
+    public void setUp() throws IOException {
+        console = System.out;
+        output = Files.createTempFile("logging-benchmark", ".log");
+        System.setOut(new PrintStream(new FileOutputStream(output.toFile()), false));
+
+        boolean prod = logging.startsWith("prod");
+        context = BenchmarkSupport.h2Application("logging" + logging,
+                "--spring.profiles.active=" + (prod ? "test,prod" : "test"),
+                "--logging.level.com.marketkosova=" + (logging.equals("prod") ? "INFO" : "DEBUG"));
+        MessageServiceBenchmark.seed(context.getBean(JdbcTemplate.class), CONVERSATIONS);
+        messageService = context.getBean(MessageService.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        System.out.close();
+        System.setOut(console);
+        System.out.printf("%nLog output: %d KB%n", Files.size(output) / 1024);
+        Files.delete(output);
+    }
+
+    @Benchmark
+    public MessageResponse sendMessage() {
+        // Conversation ids 1..CONVERSATIONS are user1's, see MessageServiceBenchmark.seed
+        long conversationId = 1 + ThreadLocalRandom.current().nextInt(CONVERSATIONS);
+        return messageService.sendMessage(conversationId, "Is this still available?", SENDER);
+    }
+
+    @Benchmark
+    public void log() {
+        long conversationId = 1 + ThreadLocalRandom.current().nextInt(CONVERSATIONS);
+        MESSAGE_LOG.debug("Message {} sent: conversationId={}, senderId={}", System.nanoTime(), conversationId, 1L);
+    }
+}
@@ -0,0 +1,54 @@
+package com.marketkosova.benchmark;
+
+import com.marketkosova.dto.MessageResponse;
+import com.marketkosova.security.AuthenticatedUser;
+import com.marketkosova.service.MessageService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MessageService#sendMessage} from many concurrent senders, with and
+ * without group commit. Every send picks one of {@code user1}'s conversations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class MessageSendBenchmark {
+
+    private static final int CONVERSATIONS = 100;
+    private static final AuthenticatedUser SENDER = new AuthenticatedUser(1L, "user1");
+
+    @Param({"false", "true"})
+    private boolean batching;
+
+    private ConfigurableApplicationContext context;
+    private MessageService messageService;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkSupport.h2Application("send" + batching,
+                "--app.messages.batching.enabled=" + batching);
+        MessageServiceBenchmark.seed(context.getBean(JdbcTemplate.class), CONVERSATIONS);
+        messageService = context.getBean(MessageService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MessageResponse sendMessage() {
+        // Conversation ids 1..CONVERSATIONS are user1's, see MessageServiceBenchmark.seed
+        long conversationId = 1 + ThreadLocalRandom.current().nextInt(CONVERSATIONS);
+        return messageService.sendMessage(conversationId, "Is this still available?", SENDER);
+    }
+}
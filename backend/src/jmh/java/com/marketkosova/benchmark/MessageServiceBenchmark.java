@@ -0,0 +1,130 @@
+package com.marketkosova.benchmark;
+
+import com.marketkosova.dto.ConversationResponse;
+import com.marketkosova.service.MessageService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MessageService#getConversations} against an embedded H2 database seeded
+ * with a marketplace-sized data set. The measured user has {@code conversations}
+ * conversations; everyone else provides background volume.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageServiceBenchmark {
+
+    private static final int USERS = 2_000;
+    private static final int LISTINGS = 10_000;
+    private static final int BACKGROUND_CONVERSATIONS = 20_000;
+    private static final int MESSAGES_PER_CONVERSATION = 15;
+    private static final int CATEGORIES = 7;
+    private static final String BENCHMARK_USER = "user1";
+
+    @Param({"10", "100"})
+    private int conversations;
+
+    private ConfigurableApplicationContext context;
+    private MessageService messageService;
+    private TransactionTemplate requestScope;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkSupport.h2Application("bench");
+        seed(context.getBean(JdbcTemplate.class), conversations);
+        messageService = context.getBean(MessageService.class);
+        // Lazy associations are normally resolved through open-session-in-view; a read-only
+        // transaction gives the benchmark the same single session per call
+        requestScope = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        requestScope.setReadOnly(true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ConversationResponse> getConversations() {
+        return requestScope.execute(status -> messageService.getConversations(BENCHMARK_USER));
+    }
+
+    /**
+     * Seeds users, listings, conversations and messages; {@code user1} is the buyer in
+     * the first {@code conversations} conversations.
+     */
+    static void seed(JdbcTemplate jdbc, int conversations) {
+        Random random = new Random(1);
+        LocalDateTime start = LocalDateTime.now().minusDays(90);
+
+        BenchmarkSupport.categories(jdbc, CATEGORIES);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            rows.add(new Object[]{i, "user" + i, "user" + i + "@example.com", "n/a", "USER", ts(start)});
+        }
+        jdbc.batchUpdate("INSERT INTO users (id, username, email, password, role, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", rows);
+
+        rows.clear();
+        for (int i = 1; i <= LISTINGS; i++) {
+            rows.add(new Object[]{i, "Listing " + i, BenchmarkSupport.description(random),
+                    random.nextInt(100_000) / 100.0, "Prishtinë", ts(start.plusMinutes(i)),
+                    (i % USERS) + 1, (i % CATEGORIES) + 1});
+        }
+        jdbc.batchUpdate("INSERT INTO listings (id, title, description, price, location, created_at, " +
+                "user_id, category_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+
+        rows.clear();
+        List<Object[]> messages = new ArrayList<>();
+        long conversationId = 0;
+        long messageId = 0;
+        Set<Long> pairs = new HashSet<>();
+        for (int i = 0; i < conversations + BACKGROUND_CONVERSATIONS; i++) {
+            // The first conversations all belong to the benchmark user, buying distinct listings
+            int listing = i < conversations ? 2 + i * 3 : 1 + random.nextInt(LISTINGS);
+            int seller = (listing % USERS) + 1;
+            int buyer = i < conversations ? 1 : 2 + random.nextInt(USERS - 1);
+            // At most one conversation per buyer and listing (uk_buyer_listing)
+            if (buyer == seller || !pairs.add((long) buyer * LISTINGS + listing)) {
+                continue;
+            }
+            conversationId++;
+            LocalDateTime createdAt = start.plusMinutes(random.nextInt(120_000));
+            LocalDateTime sentAt = createdAt;
+            for (int m = 0; m < MESSAGES_PER_CONVERSATION; m++) {
+                sentAt = sentAt.plusMinutes(1 + random.nextInt(60));
+                messages.add(new Object[]{++messageId, conversationId, m % 2 == 0 ? buyer : seller,
+                        "Is this still available? I can pick it up tomorrow.", ts(sentAt)});
+            }
+            rows.add(new Object[]{conversationId, buyer, seller, listing, ts(createdAt), ts(sentAt)});
+        }
+        jdbc.batchUpdate("INSERT INTO conversations (id, buyer_id, seller_id, listing_id, created_at, updated_at, " +
+                "buyer_unread_count, seller_unread_count) VALUES (?, ?, ?, ?, ?, ?, 0, 0)", rows);
+        jdbc.batchUpdate("INSERT INTO messages (id, conversation_id, sender_id, content, sent_at) " +
+                "VALUES (?, ?, ?, ?, ?)", messages);
+        // Explicit ids do not advance H2 identity columns
+        jdbc.execute("ALTER TABLE conversations ALTER COLUMN id RESTART WITH " + (conversationId + 1));
+        jdbc.execute("ALTER TABLE messages ALTER COLUMN id RESTART WITH " + (messageId + 1));
+    }
+
+    private static Timestamp ts(LocalDateTime value) {
+        return Timestamp.valueOf(value);
+    }
+}
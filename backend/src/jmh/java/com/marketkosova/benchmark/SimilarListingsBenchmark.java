@@ -0,0 +1,111 @@
+package com.marketkosova.benchmark;
+
+import com.marketkosova.catalog.ListingSimilarityIndex;
+import com.marketkosova.catalog.ListingVectorizer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ListingSimilarityIndex#similar} latency distribution (the p99 is the number to
+ * watch) over stored vectors of generated listings. Setup writes the vectors straight
+ * into {@code listing_vectors} and rebuilds the index, which also reports how long
+ * loading and training take at that size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SimilarListingsBenchmark {
+
+    private static final int CATEGORIES = 40;
+    private static final int WORDS_PER_CATEGORY = 60;
+    private static final int SHARED_WORDS = 400;
+
+    @Param({"100000", "1000000"})
+    private int listings;
+
+    private ConfigurableApplicationContext context;
+    private ListingSimilarityIndex similarityIndex;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkSupport.h2Application("similar" + listings);
+        seed(context.getBean(JdbcTemplate.class));
+        similarityIndex = context.getBean(ListingSimilarityIndex.class);
+        long start = System.nanoTime();
+        // Skipped while the startup build is still running; retry until it covers the seed
+        while (similarityIndex.size() < listings) {
+            similarityIndex.rebuild();
+        }
+        System.out.printf("%nRebuilt similarity index over %d listings in %d ms%n",
+                listings, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Long> similar() {
+        long id = 1 + ThreadLocalRandom.current().nextInt(listings);
+        return similarityIndex.similar(id, 8).orElseThrow();
+    }
+
+    private void seed(JdbcTemplate jdbc) {
+        BenchmarkSupport.categories(jdbc, CATEGORIES);
+        jdbc.update("INSERT INTO users (id, username, email, password, role) "
+                + "VALUES (1, 'seller', 'seller@example.com', 'n/a', 'USER')");
+
+        Random random = new Random(3);
+        List<Object[]> listingRows = new ArrayList<>();
+        List<Object[]> vectorRows = new ArrayList<>();
+        for (int i = 1; i <= listings; i++) {
+            long category = 1 + random.nextInt(CATEGORIES);
+            String title = text(random, category, 3 + random.nextInt(5));
+            BigDecimal price = BigDecimal.valueOf(random.nextInt(500_000), 2);
+            byte[] vector = ListingVectorizer.vectorize(title, text(random, category, 20 + random.nextInt(60)),
+                    category, price);
+            // The vectors are what the benchmark reads; the listing rows only satisfy the foreign key
+            listingRows.add(new Object[]{i, title, price, category});
+            vectorRows.add(new Object[]{i, vector, ListingVectorizer.VERSION, 0});
+            if (vectorRows.size() == 10_000) {
+                insert(jdbc, listingRows, vectorRows);
+                listingRows.clear();
+                vectorRows.clear();
+            }
+        }
+        insert(jdbc, listingRows, vectorRows);
+    }
+
+    private static void insert(JdbcTemplate jdbc, List<Object[]> listingRows, List<Object[]> vectorRows) {
+        jdbc.batchUpdate("INSERT INTO listings (id, title, price, user_id, category_id) VALUES (?, ?, ?, 1, ?)",
+                listingRows);
+        jdbc.batchUpdate("INSERT INTO listing_vectors (listing_id, vector, features_version, listing_version) "
+                + "VALUES (?, ?, ?, ?)", vectorRows);
+    }
+
+    // Mostly words typical of the category, some from a shared vocabulary
+    private static String text(Random random, long category, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (random.nextInt(3) == 0) {
+                sb.append("word").append(random.nextInt(SHARED_WORDS));
+            } else {
+                sb.append("cat").append(category).append("word").append(random.nextInt(WORDS_PER_CATEGORY));
+            }
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,80 @@
+package com.marketkosova.loadtest;
+
+import com.marketkosova.MarketKosovaApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The shared seeded dataset for offline checks: the application on the {@code test}
+ * profile (in-memory H2 in MySQL mode, schema from the Flyway migrations) filled by
+ * {@link MarketDataGenerator} with its fixed seed, so every run sees the same rows.
+ * One fixture per JVM, since the profile names a single in-memory database.
+ */
+public final class Fixture {
+
+    public static final int USERS = 2_000;
+    public static final int LISTINGS = 20_000;
+    public static final int CONVERSATIONS = 20_000;
+    public static final long MESSAGES = 200_000;
+
+    private static final String[] GENERATED_ID_TABLES = {"users", "listings", "conversations", "messages"};
+
+    private Fixture() {
+    }
+
+    /**
+     * Starts the application without a web server and seeds it. Extra arguments are
+     * passed to the application after the defaults.
+     */
+    public static ConfigurableApplicationContext start(String... extraArgs) {
+        return start(context -> {
+        }, extraArgs);
+    }
+
+    /** As {@link #start(String...)}, with an initializer that runs before any bean is created. */
+    public static ConfigurableApplicationContext start(ApplicationContextInitializer<ConfigurableApplicationContext> initializer,
+                                                       String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.profiles.active=test",
+                // Archiving would move some of the older seeded messages mid-check
+                "--app.jobs.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.marketkosova=WARN"));
+        args.addAll(Arrays.asList(extraArgs));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(MarketKosovaApplication.class)
+                .web(WebApplicationType.NONE)
+                .initializers(initializer)
+                .run(args.toArray(String[]::new));
+        try {
+            seed(context.getBean(DataSource.class));
+        } catch (SQLException e) {
+            context.close();
+            throw new IllegalStateException("Could not seed the fixture", e);
+        }
+        return context;
+    }
+
+    private static void seed(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            new MarketDataGenerator(5_000).generate(connection, USERS, LISTINGS, CONVERSATIONS, MESSAGES, List.of());
+            connection.setAutoCommit(true);
+        }
+        // The generator writes explicit ids, which do not advance H2 identity columns
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        for (String table : GENERATED_ID_TABLES) {
+            Long max = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            jdbc.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (max + 1));
+        }
+    }
+}
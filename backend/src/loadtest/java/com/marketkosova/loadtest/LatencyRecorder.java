@@ -0,0 +1,92 @@
+package com.marketkosova.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram for one endpoint.
+ * <p>
+ * Buckets are log-linear over microseconds (32 sub-buckets per power of two),
+ * so percentiles are accurate to roughly 3% up to several hours.
+ */
+final class LatencyRecorder {
+
+    private static final int SUB_BUCKETS = 32;
+    private static final int SUB_BITS = 5;
+    private static final int BUCKETS = 32 * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private volatile long maxMicros;
+
+    LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos, boolean ok) {
+        long micros = Math.max(1, nanos / 1_000);
+        counts.incrementAndGet(bucket(micros));
+        total.increment();
+        if (!ok) {
+            errors.increment();
+        }
+        if (micros > maxMicros) {
+            synchronized (this) {
+                maxMicros = Math.max(maxMicros, micros);
+            }
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    long count() {
+        return total.sum();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    double maxMillis() {
+        return maxMicros / 1_000.0;
+    }
+
+    /** Returns the upper bound of the bucket holding the given percentile, in milliseconds. */
+    double percentileMillis(double percentile) {
+        long n = count();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100.0 * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxMicros) / 1_000.0;
+            }
+        }
+        return maxMillis();
+    }
+
+    private static int bucket(long micros) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        if (magnitude < SUB_BITS) {
+            return (int) micros;
+        }
+        int sub = (int) (micros >>> (magnitude - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, (magnitude - SUB_BITS + 1) * SUB_BUCKETS + sub);
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int magnitude = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (magnitude - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,258 @@
+package com.marketkosova.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives a running backend with a scripted user journey and reports throughput
+ * and latency percentiles per endpoint.
+ * <p>
+ * Each virtual user logs in as one of the generated accounts and loops over:
+ * browse the feed, search, open a few listings and, now and then, chat with a
+ * seller. Start the backend against a database filled by
+ * {@link MarketDataGenerator}, then run:
+ *
+ * <pre>
+ * ./mvnw -Pbenchmark compile exec:java -Dexec.mainClass=com.marketkosova.loadtest.LoadTestRunner \
+ *     -Dexec.args="--base-url=http://localhost:8080 --concurrency=200 --duration=120"
+ * </pre>
+ */
+public class LoadTestRunner {
+
+    private static final String[] SEARCH_TERMS = {
+            "iphone", "golf", "apartment", "sofa", "jacket", "bike", "laptop", "guitar", "table", "shoes"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, LatencyRecorder> recorders = new ConcurrentHashMap<>();
+    private final HttpClient client;
+    private final String baseUrl;
+    private final int users;
+    private final int listings;
+    private final int chatPercent;
+
+    LoadTestRunner(String baseUrl, int users, int listings, int chatPercent) {
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.listings = listings;
+        this.chatPercent = chatPercent;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        int concurrency = args.getInt("concurrency", 100);
+        int warmup = args.getInt("warmup", 10);
+        int duration = args.getInt("duration", 60);
+        Path output = Paths.get(args.get("output", "target/loadtest-result.json"));
+
+        LoadTestRunner runner = new LoadTestRunner(
+                args.get("base-url", "http://localhost:8080"),
+                args.getInt("users", 100_000),
+                args.getInt("listings", 1_000_000),
+                args.getInt("chat-percent", 20));
+
+        if (warmup > 0) {
+            System.out.printf("Warming up for %d s...%n", warmup);
+            runner.run(concurrency, warmup);
+            runner.recorders.clear();
+        }
+        System.out.printf("Running %d virtual users for %d s against %s%n", concurrency, duration, runner.baseUrl);
+        long start = System.nanoTime();
+        runner.run(concurrency, duration);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        runner.printReport(seconds);
+        runner.writeReport(output, concurrency, seconds);
+    }
+
+    void run(int concurrency, int durationSeconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                executor.submit(() -> {
+                    VirtualUser user = new VirtualUser();
+                    while (System.nanoTime() < deadline) {
+                        try {
+                            user.iteration();
+                        } catch (IOException e) {
+                            record("connection error", 0, false);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(durationSeconds + 60L, TimeUnit.SECONDS);
+        }
+    }
+
+    private final class VirtualUser {
+
+        private final ThreadLocalRandom random = ThreadLocalRandom.current();
+        private String token;
+        private long userId;
+
+        void iteration() throws IOException, InterruptedException {
+            if (token == null) {
+                login();
+            }
+            call("GET /api/listings/feed", get("/api/listings/feed"));
+            String term = SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)];
+            call("GET /api/listings/filter", get("/api/listings/filter?search=" + encode(term)));
+
+            long listingId = 0;
+            int opened = 1 + random.nextInt(3);
+            for (int i = 0; i < opened; i++) {
+                listingId = 1 + random.nextInt(listings);
+                call("GET /api/listings/{id}", get("/api/listings/" + listingId));
+            }
+
+            if (random.nextInt(100) < chatPercent) {
+                chat(listingId);
+            }
+        }
+
+        private void login() throws IOException, InterruptedException {
+            // Retry a few accounts in case the id range has gaps
+            for (int attempt = 0; attempt < 5 && token == null; attempt++) {
+                String username = "user" + (1 + random.nextInt(users));
+                String body = objectMapper.writeValueAsString(Map.of(
+                        "username", username, "password", MarketDataGenerator.PASSWORD));
+                HttpResponse<String> response = call("POST /api/auth/login", HttpRequest.newBuilder(uri("/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body)));
+                if (response.statusCode() == 200) {
+                    JsonNode json = objectMapper.readTree(response.body());
+                    token = json.path("token").asText();
+                    userId = json.path("userId").asLong();
+                }
+            }
+            if (token == null) {
+                throw new IOException("Could not log in with any generated account");
+            }
+        }
+
+        private void chat(long listingId) throws IOException, InterruptedException {
+            HttpResponse<String> conversation = call("POST /api/messages/conversations",
+                    authorized("/api/messages/conversations?listingId=" + listingId)
+                            .POST(HttpRequest.BodyPublishers.noBody()));
+            if (conversation.statusCode() != 200) {
+                // Usually the user's own listing; not a server fault
+                return;
+            }
+            long conversationId = objectMapper.readTree(conversation.body()).path("id").asLong();
+            String path = "/api/messages/conversations/" + conversationId + "/messages";
+
+            call("GET /api/messages/conversations", authorized("/api/messages/conversations").GET());
+            String body = objectMapper.writeValueAsString(Map.of("content", "Load test message from " + userId));
+            call("POST /api/messages/conversations/{id}/messages", authorized(path)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)));
+            call("GET /api/messages/conversations/{id}/messages", authorized(path).GET());
+        }
+
+        private HttpRequest.Builder get(String path) {
+            return token == null ? HttpRequest.newBuilder(uri(path)).GET() : authorized(path).GET();
+        }
+
+        private HttpRequest.Builder authorized(String path) {
+            return HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token);
+        }
+
+        private HttpResponse<String> call(String endpoint, HttpRequest.Builder request)
+                throws IOException, InterruptedException {
+            long start = System.nanoTime();
+            HttpResponse<String> response = client.send(request.timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+            // Random ids can hit deleted listings or the user's own listing, which the API answers with 400
+            record(endpoint, System.nanoTime() - start, status < 500 && status != 401 && status != 403);
+            if (status == 401) {
+                token = null;
+            }
+            return response;
+        }
+    }
+
+    private void record(String endpoint, long nanos, boolean ok) {
+        recorders.computeIfAbsent(endpoint, LatencyRecorder::new).record(nanos, ok);
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private List<LatencyRecorder> sortedRecorders() {
+        List<LatencyRecorder> sorted = new ArrayList<>(recorders.values());
+        sorted.sort((a, b) -> a.name().compareTo(b.name()));
+        return sorted;
+    }
+
+    void printReport(double seconds) {
+        System.out.printf("%n%-48s %10s %8s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (LatencyRecorder r : sortedRecorders()) {
+            System.out.printf("%-48s %,10d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    r.name(), r.count(), r.errors(), r.count() / seconds,
+                    r.percentileMillis(50), r.percentileMillis(90), r.percentileMillis(99),
+                    r.percentileMillis(99.9), r.maxMillis());
+        }
+    }
+
+    void writeReport(Path output, int concurrency, double seconds) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("baseUrl", baseUrl);
+        report.put("concurrency", concurrency);
+        report.put("durationSeconds", seconds);
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        for (LatencyRecorder r : sortedRecorders()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", r.name());
+            row.put("requests", r.count());
+            row.put("errors", r.errors());
+            row.put("throughput", r.count() / seconds);
+            row.put("p50Ms", r.percentileMillis(50));
+            row.put("p90Ms", r.percentileMillis(90));
+            row.put("p99Ms", r.percentileMillis(99));
+            row.put("p999Ms", r.percentileMillis(99.9));
+            row.put("maxMs", r.maxMillis());
+            endpoints.add(row);
+        }
+        report.put("endpoints", endpoints);
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+        System.out.println("Wrote " + output.toAbsolutePath());
+    }
+}
@@ -0,0 +1,320 @@
+package com.marketkosova.loadtest;
+
+import com.marketkosova.geo.Gazetteer;
+import com.marketkosova.geo.GeoPoint;
+import com.marketkosova.repository.ListingViewRepository;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Bulk-loads a synthetic marketplace into an already migrated, empty database.
+ * <p>
+ * Rows are written with explicit ids through JDBC batches (with
+ * {@code rewriteBatchedStatements} on MySQL), committing every batch. Every
+ * user gets the password {@value #PASSWORD} so the load runner can log in.
+ *
+ * <pre>
+ * ./mvnw -Pbenchmark compile exec:java -Dexec.mainClass=com.marketkosova.loadtest.MarketDataGenerator \
+ *     -Dexec.args="--users=100000 --listings=1000000 --messages=10000000"
+ * </pre>
+ */
+public class MarketDataGenerator {
+
+    static final String PASSWORD = "password123";
+
+    private static final String[] LOCATIONS = {
+            "Prishtinë", "Prizren", "Ferizaj", "Pejë", "Gjakovë", "Gjilan", "Mitrovicë", "Podujevë",
+            "Vushtrri", "Suharekë", "Rahovec", "Drenas", "Lipjan", "Malishevë", "Kamenicë", "Viti",
+            "Deçan", "Istog", "Klinë", "Skenderaj", "Dragash", "Fushë Kosovë", "Kaçanik", "Obiliq"};
+    private static final String[] ADJECTIVES = {
+            "Like new", "Used", "Excellent", "Barely used", "Vintage", "Refurbished", "Cheap", "Premium"};
+    private static final String[][] ITEMS = {
+            {"iPhone 13", "Samsung Galaxy S22", "MacBook Air", "Gaming PC", "PlayStation 5", "LED TV 55\""},
+            {"VW Golf 7", "Audi A4", "Mercedes C220", "BMW 320d", "Opel Astra", "Mountain bike"},
+            {"2-room apartment", "House with yard", "Office space", "Building plot", "Studio flat"},
+            {"Winter jacket", "Leather shoes", "Wedding dress", "Kids clothes set", "Sports shoes"},
+            {"Corner sofa", "Dining table", "Wardrobe", "Office chair", "Double bed"},
+            {"Plumbing repairs", "English lessons", "House cleaning", "Web design", "Moving help"},
+            {"Garden tools", "Books bundle", "Guitar", "Baby stroller", "Camping tent"}};
+    private static final String[] MESSAGES = {
+            "Hi, is this still available?", "What is the lowest price?", "Can I see it tomorrow?",
+            "Yes, it is still available.", "I can do a small discount.", "Where exactly are you located?",
+            "Does it come with a warranty?", "Deal, see you at 6.", "Can you send more photos?",
+            "Is delivery to another city possible?"};
+
+    private final Random random = new Random(20240101);
+    private final GeoPoint[] locationPoints;
+    private final int batchSize;
+
+    MarketDataGenerator(int batchSize) {
+        this.batchSize = batchSize;
+        Gazetteer gazetteer = new Gazetteer();
+        this.locationPoints = new GeoPoint[LOCATIONS.length];
+        for (int i = 0; i < LOCATIONS.length; i++) {
+            locationPoints[i] = gazetteer.geocode(LOCATIONS[i]).orElseThrow();
+        }
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        String url = args.get("jdbc-url",
+                "jdbc:mysql://localhost:3306/marketkosova?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true");
+        if (url.startsWith("jdbc:mysql:") && !url.contains("rewriteBatchedStatements")) {
+            url += (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+        }
+        int users = args.getInt("users", 100_000);
+        int listings = args.getInt("listings", 1_000_000);
+        long messages = args.getLong("messages", 10_000_000);
+        int conversations = args.getInt("conversations", (int) Math.max(1, messages / 10));
+        int images = args.getInt("images", 200);
+        Path uploadDir = Paths.get(args.get("upload-dir", "./uploads")).toAbsolutePath().normalize();
+
+        MarketDataGenerator generator = new MarketDataGenerator(args.getInt("batch-size", 5_000));
+        try (Connection connection = DriverManager.getConnection(url,
+                args.get("db-user", "root"), args.get("db-password", "password"))) {
+            connection.setAutoCommit(false);
+            List<String> imageFiles = generator.writeImages(uploadDir, images);
+            generator.generate(connection, users, listings, conversations, messages, imageFiles);
+        }
+    }
+
+    void generate(Connection connection, int users, int listings, int conversations, long messages,
+                  List<String> imageFiles) throws SQLException {
+        long[] categoryIds = categoryIds(connection);
+        if (categoryIds.length == 0) {
+            throw new IllegalStateException("No categories found; run the Flyway migrations first");
+        }
+        long userBase = maxId(connection, "users");
+        long listingBase = maxId(connection, "listings");
+        long conversationBase = maxId(connection, "conversations");
+        long messageBase = maxId(connection, "messages");
+        LocalDateTime now = LocalDateTime.now();
+
+        timed("users", users, () -> insertUsers(connection, userBase, users, now));
+        timed("listings", listings, () -> insertListings(connection, userBase, users, listingBase, listings,
+                categoryIds, imageFiles, now));
+        timed("listing_view", listings, () -> copyListingView(connection, listingBase));
+        timed("conversations+messages", messages, () -> insertConversations(connection, userBase, users,
+                listingBase, listings, conversationBase, conversations, messageBase, messages, now));
+    }
+
+    private void insertUsers(Connection connection, long base, int count, LocalDateTime now) throws SQLException {
+        // BCrypt is deliberately slow, so every user shares one hash
+        String hash = new BCryptPasswordEncoder().encode(PASSWORD);
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO users (id, username, email, password, role, created_at) VALUES (?, ?, ?, ?, 'USER', ?)")) {
+            for (int i = 1; i <= count; i++) {
+                long id = base + i;
+                ps.setLong(1, id);
+                ps.setString(2, "user" + id);
+                ps.setString(3, "user" + id + "@example.com");
+                ps.setString(4, hash);
+                ps.setTimestamp(5, Timestamp.valueOf(now.minusMinutes(random.nextInt(525_600))));
+                addBatch(connection, ps, i);
+            }
+            flush(connection, ps);
+        }
+    }
+
+    private void insertListings(Connection connection, long userBase, int users, long base, int count,
+                                long[] categoryIds, List<String> imageFiles, LocalDateTime now) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO listings (id, title, description, price, location, image, created_at, " +
+                        "user_id, category_id, latitude, longitude) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= count; i++) {
+                int category = random.nextInt(categoryIds.length);
+                String[] items = ITEMS[category % ITEMS.length];
+                int location = random.nextInt(LOCATIONS.length);
+                GeoPoint point = locationPoints[location];
+
+                ps.setLong(1, base + i);
+                ps.setString(2, ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                        + items[random.nextInt(items.length)]);
+                ps.setString(3, description());
+                ps.setBigDecimal(4, price());
+                ps.setString(5, LOCATIONS[location]);
+                ps.setString(6, imageFiles.isEmpty() || random.nextInt(10) == 0
+                        ? null : imageFiles.get(random.nextInt(imageFiles.size())));
+                ps.setTimestamp(7, Timestamp.valueOf(now.minusMinutes(random.nextInt(525_600))));
+                ps.setLong(8, owner(userBase, users, i));
+                ps.setLong(9, categoryIds[category]);
+                // Spread listings a few kilometres around the municipality center
+                ps.setDouble(10, point.latitude() + (random.nextDouble() - 0.5) * 0.08);
+                ps.setDouble(11, point.longitude() + (random.nextDouble() - 0.5) * 0.08);
+                addBatch(connection, ps, i);
+            }
+            flush(connection, ps);
+        }
+    }
+
+    private static void copyListingView(Connection connection, long listingBase) throws SQLException {
+        // Browse endpoints read the denormalized copy, which the application normally maintains itself
+        try (PreparedStatement ps = connection.prepareStatement(ListingViewRepository.COPY_FROM_LISTINGS_SQL)) {
+            ps.setLong(1, listingBase);
+            ps.executeUpdate();
+            connection.commit();
+        }
+    }
+
+    private void insertConversations(Connection connection, long userBase, int users, long listingBase,
+                                     int listings, long conversationBase, int conversations, long messageBase,
+                                     long messages, LocalDateTime now) throws SQLException {
+        double messagesPerConversation = (double) messages / conversations;
+        long messageId = messageBase;
+        long remaining = messages;
+
+        try (PreparedStatement conv = connection.prepareStatement(
+                "INSERT INTO conversations (id, buyer_id, seller_id, listing_id, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement msg = connection.prepareStatement(
+                     "INSERT INTO messages (id, conversation_id, sender_id, content, sent_at) VALUES (?, ?, ?, ?, ?)")) {
+            long pendingMessages = 0;
+            for (int k = 0; k < conversations && remaining > 0; k++) {
+                // (buyer, listing) pairs must be unique: each round over the listings uses the next buyer
+                int listingIndex = k % listings + 1;
+                int round = k / listings;
+                long seller = owner(userBase, users, listingIndex);
+                long buyer = userBase + ((seller - userBase + round) % users) + 1;
+                if (buyer == seller || round >= users - 1) {
+                    continue;
+                }
+
+                long conversationId = conversationBase + k + 1;
+                LocalDateTime sentAt = now.minusMinutes(60 + random.nextInt(259_200));
+                LocalDateTime createdAt = sentAt;
+                long count = k == conversations - 1
+                        ? remaining
+                        : Math.min(remaining, 1 + (long) (random.nextDouble() * 2 * messagesPerConversation));
+                for (long m = 0; m < count; m++) {
+                    msg.setLong(1, ++messageId);
+                    msg.setLong(2, conversationId);
+                    msg.setLong(3, m % 2 == 0 ? buyer : seller);
+                    msg.setString(4, MESSAGES[random.nextInt(MESSAGES.length)]);
+                    msg.setTimestamp(5, Timestamp.valueOf(sentAt));
+                    msg.addBatch();
+                    sentAt = sentAt.plusSeconds(30 + random.nextInt(3_600));
+                    pendingMessages++;
+                }
+                remaining -= count;
+
+                conv.setLong(1, conversationId);
+                conv.setLong(2, buyer);
+                conv.setLong(3, seller);
+                conv.setLong(4, listingBase + listingIndex);
+                conv.setTimestamp(5, Timestamp.valueOf(createdAt));
+                conv.setTimestamp(6, Timestamp.valueOf(sentAt));
+                conv.addBatch();
+
+                if (pendingMessages >= batchSize) {
+                    conv.executeBatch();
+                    msg.executeBatch();
+                    connection.commit();
+                    pendingMessages = 0;
+                }
+            }
+            conv.executeBatch();
+            msg.executeBatch();
+            connection.commit();
+        }
+    }
+
+    List<String> writeImages(Path uploadDir, int count) throws IOException {
+        Files.createDirectories(uploadDir);
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String filename = String.format("loadtest-%04d.png", i);
+            Path target = uploadDir.resolve(filename);
+            if (!Files.exists(target)) {
+                BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = image.createGraphics();
+                g.setColor(Color.getHSBColor(random.nextFloat(), 0.5f, 0.8f));
+                g.fillRect(0, 0, 640, 480);
+                g.setColor(Color.WHITE);
+                g.drawString("MarketKosova #" + i, 260, 240);
+                g.dispose();
+                ImageIO.write(image, "png", target.toFile());
+            }
+            files.add(filename);
+        }
+        return files;
+    }
+
+    private String description() {
+        StringBuilder sb = new StringBuilder();
+        int sentences = 1 + random.nextInt(6);
+        for (int i = 0; i < sentences; i++) {
+            sb.append(MESSAGES[random.nextInt(MESSAGES.length)]).append(' ')
+                    .append("Used for ").append(1 + random.nextInt(48)).append(" months, good condition. ");
+        }
+        return sb.toString().trim();
+    }
+
+    private BigDecimal price() {
+        // Log-normal prices: most items are cheap, a few (cars, flats) are expensive
+        double value = Math.exp(4.5 + random.nextGaussian() * 1.6);
+        return BigDecimal.valueOf(Math.min(Math.max(value, 1), 9_999_999)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static long owner(long userBase, int users, int listingIndex) {
+        // Sellers own a skewed share of listings, like shops next to occasional sellers
+        long index = (long) listingIndex * listingIndex % users;
+        return userBase + index + 1;
+    }
+
+    private void addBatch(Connection connection, PreparedStatement ps, int index) throws SQLException {
+        ps.addBatch();
+        if (index % batchSize == 0) {
+            flush(connection, ps);
+        }
+    }
+
+    private static void flush(Connection connection, PreparedStatement ps) throws SQLException {
+        ps.executeBatch();
+        connection.commit();
+    }
+
+    private static long[] categoryIds(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id FROM categories ORDER BY id")) {
+            List<Long> ids = new ArrayList<>();
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+            return ids.stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+
+    private static long maxId(Connection connection, String table) throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private interface Step {
+        void run() throws SQLException;
+    }
+
+    private static void timed(String name, long rows, Step step) throws SQLException {
+        long start = System.nanoTime();
+        step.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-24s %,12d rows in %7.1f s (%,.0f rows/s)%n", name, rows, seconds, rows / seconds);
+    }
+}
@@ -0,0 +1,135 @@
+package com.marketkosova.loadtest;
+
+import com.marketkosova.entity.Listing;
+import com.marketkosova.repository.ConversationRepository;
+import com.marketkosova.repository.ListingRepository;
+import com.marketkosova.repository.MessageRepository;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static com.marketkosova.repository.ListingSpecifications.inCategories;
+import static com.marketkosova.repository.ListingSpecifications.priceBetween;
+import static com.marketkosova.repository.ListingSpecifications.textContains;
+
+/**
+ * Every query method of {@link ListingRepository}, {@link ConversationRepository} and
+ * {@link MessageRepository}, called with random arguments on the {@link Fixture}. Shared by
+ * the repository latency and query plan tests.
+ */
+final class RepositoryQueries {
+
+    private static final List<BigDecimal> PRICE_BOUNDS = List.of(
+            BigDecimal.valueOf(50), BigDecimal.valueOf(200), BigDecimal.valueOf(1_000), BigDecimal.valueOf(5_000));
+    private static final String[] SEARCH_TERMS = {"iphone", "golf", "sofa", "apartment", "guitar"};
+
+    record Query(String name, Consumer<Random> call, boolean writes) {
+    }
+
+    private RepositoryQueries() {
+    }
+
+    /** Runs the query in its own transaction, read-only unless it writes, and always rolled back. */
+    static Runnable inTransaction(Query query, PlatformTransactionManager transactionManager, Random random) {
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        transactions.setReadOnly(!query.writes());
+        return () -> transactions.executeWithoutResult(status -> {
+            query.call().accept(random);
+            status.setRollbackOnly();
+        });
+    }
+
+    static List<Query> queries(ConfigurableApplicationContext context) {
+        ListingRepository listings = context.getBean(ListingRepository.class);
+        ConversationRepository conversations = context.getBean(ConversationRepository.class);
+        MessageRepository messages = context.getBean(MessageRepository.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        long conversationCount = jdbc.queryForObject("SELECT MAX(id) FROM conversations", Long.class);
+        long categoryCount = jdbc.queryForObject("SELECT COUNT(*) FROM categories", Long.class);
+        LocalDateTime weekAgo = LocalDateTime.now().minusDays(7);
+
+        List<Query> queries = new ArrayList<>();
+        queries.add(new Query("ListingRepository.findByUserIdOrderByCreatedAtDesc",
+                r -> listings.findByUserIdOrderByCreatedAtDesc(user(r)), false));
+        queries.add(new Query("ListingRepository.findAllByOrderByCreatedAtDesc",
+                r -> listings.findAllByOrderByCreatedAtDesc(PageRequest.of(r.nextInt(5), 20)), false));
+        queries.add(new Query("ListingRepository.findByCategoryIdOrderByCreatedAtDesc",
+                r -> listings.findByCategoryIdOrderByCreatedAtDesc(1 + r.nextLong(categoryCount),
+                        PageRequest.of(r.nextInt(5), 20)), false));
+        queries.add(new Query("ListingRepository.findAllCoordinates",
+                r -> listings.findAllCoordinates(), false));
+        queries.add(new Query("ListingRepository.findByIdIn",
+                r -> listings.findByIdIn(LongStream.generate(() -> listing(r)).limit(20).boxed().toList()), false));
+        queries.add(new Query("ListingRepository.findAll(spec, pageable)",
+                r -> listings.findAll(filter(r, categoryCount), PageRequest.of(r.nextInt(5), 20,
+                        Sort.by(Sort.Direction.DESC, "createdAt"))), false));
+        queries.add(new Query("ListingRepository.findAll(spec, sort)",
+                r -> listings.findAll(Specification.where(textContains(SEARCH_TERMS[r.nextInt(SEARCH_TERMS.length)]))
+                        .and(inCategories(List.of(1 + r.nextLong(categoryCount)))),
+                        Sort.by(Sort.Direction.DESC, "createdAt")), false));
+        queries.add(new Query("ListingRepository.countByCategory",
+                r -> listings.countByCategory(priceBetween(price(r, 0), price(r, 500))), false));
+        queries.add(new Query("ListingRepository.countByPriceBuckets",
+                r -> listings.countByPriceBuckets(inCategories(List.of(1 + r.nextLong(categoryCount))),
+                        PRICE_BOUNDS), false));
+        queries.add(new Query("ListingRepository.findById",
+                r -> listings.findById(listing(r)), false));
+
+        queries.add(new Query("ConversationRepository.findByUserIdOrderByUpdatedAtDesc",
+                r -> conversations.findByUserIdOrderByUpdatedAtDesc(user(r)), false));
+        queries.add(new Query("ConversationRepository.findByBuyerIdAndListingId",
+                r -> conversations.findByBuyerIdAndListingId(user(r), listing(r)), false));
+        queries.add(new Query("ConversationRepository.findMembershipById",
+                r -> conversations.findMembershipById(1 + r.nextLong(conversationCount)), false));
+        queries.add(new Query("ConversationRepository.sumUnreadCountByUserId",
+                r -> conversations.sumUnreadCountByUserId(user(r)), false));
+        queries.add(new Query("ConversationRepository.markReadByBuyer",
+                r -> conversations.markReadByBuyer(1 + r.nextLong(conversationCount), Fixture.MESSAGES), true));
+        queries.add(new Query("ConversationRepository.markReadBySeller",
+                r -> conversations.markReadBySeller(1 + r.nextLong(conversationCount), Fixture.MESSAGES), true));
+        queries.add(new Query("ConversationRepository.countPerListingAndDaySince",
+                r -> conversations.countPerListingAndDaySince(weekAgo), false));
+
+        queries.add(new Query("MessageRepository.findPageBefore",
+                r -> messages.findPageBefore(1 + r.nextLong(conversationCount), Long.MAX_VALUE, Pageable.ofSize(50)),
+                false));
+        queries.add(new Query("MessageRepository.findLastMessageByConversationId",
+                r -> messages.findLastMessageByConversationId(1 + r.nextLong(conversationCount)), false));
+        queries.add(new Query("MessageRepository.findLastMessageIdByConversationId",
+                r -> messages.findLastMessageIdByConversationId(1 + r.nextLong(conversationCount)), false));
+        queries.add(new Query("MessageRepository.countPerListingAndDaySince",
+                r -> messages.countPerListingAndDaySince(weekAgo), false));
+        return queries;
+    }
+
+    private static Specification<Listing> filter(Random random, long categoryCount) {
+        BigDecimal min = price(random, 0);
+        return Specification.where(inCategories(List.of(1 + random.nextLong(categoryCount))))
+                .and(priceBetween(min, min.add(price(random, 500))));
+    }
+
+    private static long user(Random random) {
+        return 1 + random.nextInt(Fixture.USERS);
+    }
+
+    private static long listing(Random random) {
+        return 1 + random.nextInt(Fixture.LISTINGS);
+    }
+
+    private static BigDecimal price(Random random, int base) {
+        return BigDecimal.valueOf(base + random.nextInt(1_000));
+    }
+}
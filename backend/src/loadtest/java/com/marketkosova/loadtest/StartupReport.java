@@ -0,0 +1,117 @@
+package com.marketkosova.loadtest;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Starts the backend several times per launch configuration and reports the
+ * startup time Spring logs, the time until the first request succeeds and the
+ * latency of that first request. Configurations are passed as
+ * {@code --config.<label>=<command line>} and started in {@code --workdir}
+ * (the archive must be used from the directory it was trained in). See the
+ * README for a full invocation.
+ */
+public class StartupReport {
+
+    private static final Pattern STARTED = Pattern.compile(
+            "Started \\S+ in ([0-9.]+) seconds \\(process running for ([0-9.]+)\\)");
+
+    private record Run(double startedSeconds, double processSeconds, double firstResponseSeconds,
+                       double firstRequestMillis) {
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        int runs = args.getInt("runs", 5);
+        URI url = URI.create(args.get("url", "http://localhost:8080/api/categories"));
+        File workdir = new File(args.get("workdir", "."));
+        Map<String, String> configs = args.withPrefix("config");
+        if (configs.isEmpty()) {
+            throw new IllegalArgumentException("Pass at least one --config.<label>=<command line>");
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        System.out.printf("%-20s %12s %12s %16s %16s%n",
+                "config", "started s", "process s", "first resp s", "first req ms");
+        for (Map.Entry<String, String> config : configs.entrySet()) {
+            List<Run> results = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                results.add(measure(config.getValue(), workdir, url, client));
+            }
+            System.out.printf("%-20s %12.2f %12.2f %16.2f %16.1f%n", config.getKey(),
+                    median(results, Run::startedSeconds), median(results, Run::processSeconds),
+                    median(results, Run::firstResponseSeconds), median(results, Run::firstRequestMillis));
+        }
+        System.out.printf("(medians of %d runs)%n", runs);
+    }
+
+    private static Run measure(String command, File workdir, URI url, HttpClient client) throws Exception {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command.trim().split("\\s+"))
+                .directory(workdir)
+                .redirectErrorStream(true)
+                .start();
+        double[] started = {Double.NaN, Double.NaN};
+        Thread reader = Thread.ofVirtual().start(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    Matcher matcher = STARTED.matcher(line);
+                    if (matcher.find()) {
+                        started[0] = Double.parseDouble(matcher.group(1));
+                        started[1] = Double.parseDouble(matcher.group(2));
+                    }
+                }
+            } catch (IOException e) {
+                // Process ended
+            }
+        });
+
+        try {
+            long deadline = start + TimeUnit.SECONDS.toNanos(120);
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Process exited with " + process.exitValue() + ": " + command);
+                }
+                long requestStart = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = client.send(HttpRequest.newBuilder(url).GET().build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        long now = System.nanoTime();
+                        return new Run(started[0], started[1], (now - start) / 1e9, (now - requestStart) / 1e6);
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(20);
+            }
+            throw new IllegalStateException("No successful response within 120 s: " + command);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+            reader.join();
+        }
+    }
+
+    private static double median(List<Run> runs, ToDoubleFunction<Run> metric) {
+        double[] values = runs.stream().mapToDouble(metric).sorted().toArray();
+        return values.length == 0 ? Double.NaN : values[values.length / 2];
+    }
+}
@@ -0,0 +1,112 @@
+package com.marketkosova.loadtest;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records the SQL and bound parameters of every prepared statement the application runs
+ * while {@link #capture} is active on the calling thread, by wrapping the {@code DataSource}
+ * bean. Catches what Hibernate, Spring Data and JdbcTemplate send alike.
+ */
+final class StatementCapture implements BeanPostProcessor {
+
+    record Statement(String sql, List<Object> parameters) {
+    }
+
+    private final ThreadLocal<List<Statement>> recording = new ThreadLocal<>();
+    private DataSource target;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && target == null) {
+            target = dataSource;
+            return wrap(dataSource);
+        }
+        return bean;
+    }
+
+    /** The unwrapped data source, for running statements that should not be recorded. */
+    DataSource target() {
+        return target;
+    }
+
+    /** Runs {@code call} and returns the statements it executed, in order. */
+    List<Statement> capture(Runnable call) {
+        List<Statement> statements = new ArrayList<>();
+        recording.set(statements);
+        try {
+            call.run();
+        } finally {
+            recording.remove();
+        }
+        return statements;
+    }
+
+    private DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            Object result = invoke(dataSource, method, args);
+            return result instanceof Connection connection ? wrap(connection) : result;
+        });
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                return proxy(PreparedStatement.class, new StatementHandler(statement, (String) args[0]));
+            }
+            return result;
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final PreparedStatement delegate;
+        private final String sql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+
+        StatementHandler(PreparedStatement delegate, String sql) {
+            this.delegate = delegate;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.startsWith("execute") && (args == null || args.length == 0)) {
+                List<Statement> statements = recording.get();
+                if (statements != null) {
+                    statements.add(new Statement(sql, new ArrayList<>(parameters.values())));
+                }
+            }
+            return StatementCapture.invoke(delegate, method, args);
+        }
+    }
+}
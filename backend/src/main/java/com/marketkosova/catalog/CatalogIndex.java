@@ -0,0 +1,563 @@
+package com.marketkosova.catalog;
+
+import com.marketkosova.dto.ListingSort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Column store behind {@link ListingCatalog}. Each listing occupies a slot in parallel
+ * primitive arrays; posting lists per category (and one over all listings) keep the slots
+ * sorted by date and by price, so a filtered page is a binary search for the price range
+ * plus a walk over at most a few cursors. Counts for facets and totals come from the same
+ * binary searches and never touch individual rows. A new index is filled with
+ * {@link #load} and sorted once by {@link #finishLoad}; live writes then insert into
+ * blocked posting lists, so each one shifts a block rather than the whole list.
+ * <p>
+ * Not thread-safe; {@link ListingCatalog} guards it with a read/write lock.
+ */
+class CatalogIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int maxListings;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] categories = new long[INITIAL_CAPACITY];
+    private long[] prices = new long[INITIAL_CAPACITY];
+    private long[] created = new long[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private int slotCount;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    private final LongIntMap slotsById = new LongIntMap();
+    private final Postings all = new Postings();
+    private final Map<Long, Postings> byCategory = new HashMap<>();
+
+    record Page(long[] listingIds, long total) {
+    }
+
+    CatalogIndex(int maxListings) {
+        this.maxListings = maxListings;
+    }
+
+    int size() {
+        return slotsById.size();
+    }
+
+    /**
+     * Adds or replaces a listing. Older versions than the stored one are ignored, so
+     * replaying an event after a rebuild cannot roll a listing back. Returns
+     * {@code false} when the catalog is full.
+     */
+    boolean put(long id, long categoryId, long priceCents, long createdAt, long version) {
+        int slot = slotsById.get(id);
+        if (slot >= 0) {
+            if (versions[slot] > version) {
+                return true;
+            }
+            unlink(slot);
+        } else {
+            if (slotsById.size() >= maxListings) {
+                return false;
+            }
+            slot = allocate();
+            slotsById.put(id, slot);
+        }
+        ids[slot] = id;
+        categories[slot] = categoryId;
+        prices[slot] = priceCents;
+        created[slot] = createdAt;
+        versions[slot] = version;
+        all.add(slot);
+        byCategory.computeIfAbsent(categoryId, k -> new Postings()).add(slot);
+        return true;
+    }
+
+    /**
+     * Stores a listing for a new index without ordering the posting lists; {@link #finishLoad}
+     * sorts them once after the last call. Only for an index that has seen no other writes.
+     * Returns {@code false} when the catalog is full.
+     */
+    boolean load(long id, long categoryId, long priceCents, long createdAt, long version) {
+        int slot = slotsById.get(id);
+        if (slot < 0) {
+            if (slotsById.size() >= maxListings) {
+                return false;
+            }
+            slot = allocate();
+            slotsById.put(id, slot);
+        } else if (versions[slot] > version) {
+            return true;
+        }
+        ids[slot] = id;
+        categories[slot] = categoryId;
+        prices[slot] = priceCents;
+        created[slot] = createdAt;
+        versions[slot] = version;
+        return true;
+    }
+
+    /**
+     * Builds the posting lists of the listings passed to {@link #load}: one sort by date and one
+     * by price over all listings, which the category lists take their order from.
+     */
+    void finishLoad() {
+        int[] slots = IntStream.range(0, slotCount).filter(slot -> slotsById.get(ids[slot]) == slot).toArray();
+        int[] byDate = sorted(slots, this::compareDate);
+        int[] byPrice = sorted(slots, this::comparePrice);
+        all.byDate.fill(byDate, byDate.length);
+        all.byPrice.fill(byPrice, byPrice.length);
+
+        Map<Long, int[]> dateOrders = splitByCategory(byDate);
+        Map<Long, int[]> priceOrders = splitByCategory(byPrice);
+        byCategory.clear();
+        dateOrders.forEach((categoryId, order) -> {
+            Postings list = new Postings();
+            list.byDate.fill(order, order.length);
+            list.byPrice.fill(priceOrders.get(categoryId), order.length);
+            byCategory.put(categoryId, list);
+        });
+    }
+
+    void remove(long id) {
+        int slot = slotsById.remove(id);
+        if (slot < 0) {
+            return;
+        }
+        unlink(slot);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Listing ids for one page in {@code sort} order, and the total number of matches.
+     * {@code categoryIds} empty means all categories; the price range is inclusive.
+     */
+    Page page(long[] categoryIds, long minPrice, long maxPrice, ListingSort sort, long offset, int limit) {
+        List<Postings> lists = postings(categoryIds);
+        long total = 0;
+        List<Cursor> cursors = new ArrayList<>(lists.size());
+        for (Postings list : lists) {
+            int lo = list.priceFrom(minPrice);
+            int hi = list.priceFrom(exclusive(maxPrice));
+            total += hi - lo;
+            if (hi > lo) {
+                cursors.add(new Cursor(list, sort, lo, hi));
+            }
+        }
+        // Date orders walk every listing of the category; price orders only the matching range
+        boolean filterPrice = (sort == ListingSort.NEWEST || sort == ListingSort.OLDEST)
+                && (minPrice > Long.MIN_VALUE || maxPrice < Long.MAX_VALUE);
+
+        long[] page = new long[(int) Math.max(0, Math.min(limit, total - offset))];
+        long skipped = 0;
+        int filled = 0;
+        while (filled < page.length) {
+            Cursor best = null;
+            for (Cursor cursor : cursors) {
+                if (cursor.slot >= 0 && (best == null || compare(sort, cursor.slot, best.slot) < 0)) {
+                    best = cursor;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            int slot = best.slot;
+            best.advance();
+            if (filterPrice && (prices[slot] < minPrice || prices[slot] > maxPrice)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                page[filled++] = ids[slot];
+            }
+        }
+        return new Page(filled == page.length ? page : Arrays.copyOf(page, filled), total);
+    }
+
+    /**
+     * Matches per category within the inclusive price range.
+     */
+    Map<Long, Long> countByCategory(long minPrice, long maxPrice) {
+        Map<Long, Long> counts = new HashMap<>();
+        byCategory.forEach((categoryId, list) -> {
+            long count = list.priceFrom(exclusive(maxPrice)) - list.priceFrom(minPrice);
+            if (count > 0) {
+                counts.put(categoryId, count);
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * Matches per price bucket; bucket {@code i} is {@code [bounds[i - 1], bounds[i])},
+     * open-ended at both ends.
+     */
+    long[] countByPriceBuckets(long[] categoryIds, long[] bounds) {
+        long[] counts = new long[bounds.length + 1];
+        for (Postings list : postings(categoryIds)) {
+            int from = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                int to = list.priceFrom(bounds[i]);
+                counts[i] += to - from;
+                from = to;
+            }
+            counts[bounds.length] += list.size() - from;
+        }
+        return counts;
+    }
+
+    private List<Postings> postings(long[] categoryIds) {
+        if (categoryIds.length == 0) {
+            return List.of(all);
+        }
+        List<Postings> lists = new ArrayList<>(categoryIds.length);
+        for (long categoryId : categoryIds) {
+            Postings list = byCategory.get(categoryId);
+            if (list != null && !lists.contains(list)) {
+                lists.add(list);
+            }
+        }
+        return lists;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == ids.length) {
+            int capacity = (int) Math.min((long) ids.length * 2, Math.max(maxListings, INITIAL_CAPACITY));
+            ids = Arrays.copyOf(ids, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            created = Arrays.copyOf(created, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+        }
+        return slotCount++;
+    }
+
+    private void unlink(int slot) {
+        all.remove(slot);
+        Postings list = byCategory.get(categories[slot]);
+        list.remove(slot);
+        if (list.size() == 0) {
+            byCategory.remove(categories[slot]);
+        }
+    }
+
+    private static int[] sorted(int[] slots, IntBinaryOperator order) {
+        return IntStream.of(slots).boxed().sorted(order::applyAsInt).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Splits slots in some order into one array per category, each keeping that order.
+     */
+    private Map<Long, int[]> splitByCategory(int[] slots) {
+        Map<Long, int[]> lists = new HashMap<>();
+        Map<Long, Integer> filled = new HashMap<>();
+        for (int slot : slots) {
+            filled.merge(categories[slot], 1, Integer::sum);
+        }
+        filled.forEach((categoryId, count) -> lists.put(categoryId, new int[count]));
+        filled.replaceAll((categoryId, count) -> 0);
+        for (int slot : slots) {
+            int position = filled.merge(categories[slot], 1, Integer::sum) - 1;
+            lists.get(categories[slot])[position] = slot;
+        }
+        return lists;
+    }
+
+    private static long exclusive(long maxPrice) {
+        // priceFrom(max + 1) is the end of an inclusive range
+        return maxPrice == Long.MAX_VALUE ? maxPrice : maxPrice + 1;
+    }
+
+    /**
+     * Oldest first, ties by id.
+     */
+    private int compareDate(int a, int b) {
+        int c = Long.compare(created[a], created[b]);
+        return c != 0 ? c : Long.compare(ids[a], ids[b]);
+    }
+
+    /**
+     * Cheapest first, then newest first like {@link ListingSort#PRICE_ASC}.
+     */
+    private int comparePrice(int a, int b) {
+        int c = Long.compare(prices[a], prices[b]);
+        return c != 0 ? c : compareDate(b, a);
+    }
+
+    private int compare(ListingSort sort, int a, int b) {
+        return switch (sort) {
+            case NEWEST -> compareDate(b, a);
+            case OLDEST -> compareDate(a, b);
+            case PRICE_ASC -> comparePrice(a, b);
+            case PRICE_DESC -> {
+                int c = Long.compare(prices[b], prices[a]);
+                yield c != 0 ? c : compareDate(b, a);
+            }
+        };
+    }
+
+    /**
+     * Slots of one category in date order and in price order.
+     */
+    private final class Postings {
+
+        final SlotList byDate = new SlotList(CatalogIndex.this::compareDate);
+        final SlotList byPrice = new SlotList(CatalogIndex.this::comparePrice);
+
+        int size() {
+            return byDate.size();
+        }
+
+        void add(int slot) {
+            byDate.insert(slot);
+            byPrice.insert(slot);
+        }
+
+        void remove(int slot) {
+            byDate.remove(slot);
+            byPrice.remove(slot);
+        }
+
+        /**
+         * First position in {@link #byPrice} whose price is at least {@code price}.
+         */
+        int priceFrom(long price) {
+            return byPrice.firstNotBefore(slot -> prices[slot] < price);
+        }
+    }
+
+    /**
+     * Slots sorted by {@code order}, stored in blocks of at most {@value #BLOCK_SIZE} with the
+     * position each block starts at. An insert or remove shifts one block and updates the block
+     * offsets, instead of moving every later slot.
+     */
+    static final class SlotList {
+
+        private static final int BLOCK_SIZE = 1024;
+
+        private final IntBinaryOperator order;
+        private final List<Block> blocks = new ArrayList<>();
+        private int[] offsets = new int[16];
+        private int size;
+
+        private static final class Block {
+
+            final int[] slots = new int[BLOCK_SIZE];
+            int size;
+        }
+
+        SlotList(IntBinaryOperator order) {
+            this.order = order;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(int position) {
+            int b = blockAt(position);
+            return blocks.get(b).slots[position - offsets[b]];
+        }
+
+        /**
+         * Replaces the contents with the first {@code count} of {@code sorted}, already in order.
+         * Blocks start half full so later inserts do not split them straight away.
+         */
+        void fill(int[] sorted, int count) {
+            blocks.clear();
+            for (int from = 0; from < count; from += BLOCK_SIZE / 2) {
+                Block block = new Block();
+                block.size = Math.min(BLOCK_SIZE / 2, count - from);
+                System.arraycopy(sorted, from, block.slots, 0, block.size);
+                blocks.add(block);
+            }
+            size = count;
+            reindex(0);
+        }
+
+        /**
+         * First position whose slot does not match {@code before}, which must hold for a prefix
+         * of the list.
+         */
+        int firstNotBefore(IntPredicate before) {
+            int lo = 0;
+            int hi = blocks.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                Block block = blocks.get(mid);
+                if (before.test(block.slots[block.size - 1])) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            if (lo == blocks.size()) {
+                return size;
+            }
+            return offsets[lo] + firstNotBefore(blocks.get(lo), before);
+        }
+
+        void insert(int slot) {
+            if (blocks.isEmpty()) {
+                blocks.add(new Block());
+            }
+            IntPredicate before = other -> order.applyAsInt(other, slot) < 0;
+            int b = 0;
+            int hi = blocks.size() - 1;
+            while (b < hi) {
+                int mid = (b + hi) >>> 1;
+                Block block = blocks.get(mid);
+                if (before.test(block.slots[block.size - 1])) {
+                    b = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            Block block = blocks.get(b);
+            int index = firstNotBefore(block, before);
+            if (block.size == BLOCK_SIZE) {
+                Block upper = new Block();
+                upper.size = BLOCK_SIZE / 2;
+                System.arraycopy(block.slots, BLOCK_SIZE / 2, upper.slots, 0, upper.size);
+                block.size = BLOCK_SIZE / 2;
+                blocks.add(b + 1, upper);
+                if (index > block.size) {
+                    index -= block.size;
+                    block = upper;
+                    b++;
+                }
+            }
+            System.arraycopy(block.slots, index, block.slots, index + 1, block.size - index);
+            block.slots[index] = slot;
+            block.size++;
+            size++;
+            reindex(b);
+        }
+
+        void remove(int slot) {
+            int position = firstNotBefore(other -> order.applyAsInt(other, slot) < 0);
+            if (position == size || get(position) != slot) {
+                return;
+            }
+            int b = blockAt(position);
+            Block block = blocks.get(b);
+            int index = position - offsets[b];
+            System.arraycopy(block.slots, index + 1, block.slots, index, block.size - index - 1);
+            block.size--;
+            size--;
+            if (block.size == 0) {
+                blocks.remove(b);
+            }
+            reindex(b);
+        }
+
+        private static int firstNotBefore(Block block, IntPredicate before) {
+            int lo = 0;
+            int hi = block.size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (before.test(block.slots[mid])) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        // Last block starting at or before the position; blocks are never empty
+        private int blockAt(int position) {
+            int lo = 0;
+            int hi = blocks.size() - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (offsets[mid] <= position) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return lo;
+        }
+
+        private void reindex(int from) {
+            if (offsets.length < blocks.size()) {
+                offsets = Arrays.copyOf(offsets, Math.max(blocks.size(), offsets.length * 2));
+            }
+            int position = from == 0 ? 0 : offsets[from - 1] + blocks.get(from - 1).size;
+            for (int b = from; b < blocks.size(); b++) {
+                offsets[b] = position;
+                position += blocks.get(b).size;
+            }
+        }
+    }
+
+    /**
+     * Walks one posting list in the order of a sort; {@code slot} is -1 once exhausted.
+     * Price orders are limited to {@code [lo, hi)} of {@code byPrice}.
+     */
+    private final class Cursor {
+
+        private final Postings list;
+        private final ListingSort sort;
+        private final int lo;
+        private final int hi;
+        private int pos;
+        // PRICE_DESC walks price runs from the most expensive down, each run newest first
+        private int runStart;
+        private int runEnd;
+        int slot;
+
+        Cursor(Postings list, ListingSort sort, int lo, int hi) {
+            this.list = list;
+            this.sort = sort;
+            this.lo = lo;
+            this.hi = hi;
+            pos = switch (sort) {
+                case NEWEST -> list.size();
+                case OLDEST -> -1;
+                case PRICE_ASC -> lo - 1;
+                case PRICE_DESC -> hi;
+            };
+            runStart = hi;
+            runEnd = hi - 1;
+            advance();
+        }
+
+        void advance() {
+            slot = switch (sort) {
+                case NEWEST -> --pos >= 0 ? list.byDate.get(pos) : -1;
+                case OLDEST -> ++pos < list.size() ? list.byDate.get(pos) : -1;
+                case PRICE_ASC -> ++pos < hi ? list.byPrice.get(pos) : -1;
+                case PRICE_DESC -> nextDescending();
+            };
+        }
+
+        private int nextDescending() {
+            if (pos > runEnd) {
+                if (runStart <= lo) {
+                    return -1;
+                }
+                runEnd = runStart - 1;
+                runStart = Math.max(lo, list.priceFrom(prices[list.byPrice.get(runEnd)]));
+                pos = runStart;
+            }
+            return list.byPrice.get(pos++);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.marketkosova.catalog;
+
+import com.marketkosova.dto.CategoryFacetResponse;
+import com.marketkosova.dto.ListingResponse;
+import com.marketkosova.dto.ListingSort;
+import com.marketkosova.event.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory catalog of listing ids, categories, prices and dates that answers the
+ * unsearched {@code /api/listings/filter} pages and facets without the database; only
+ * the page's rows are then read from {@code listing_view}. Built at startup and kept
+ * current from the listing domain events.
+ * <p>
+ * Memory is bounded by {@code app.catalog.max-listings}: a catalog that would outgrow
+ * it switches itself off and {@link #filter} returns empty, so callers fall back to
+ * the repository queries.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ListingCatalog implements DomainEventConsumer {
+
+    private static final int LOAD_BATCH_SIZE = 10_000;
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.catalog.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.catalog.max-listings:1000000}")
+    private int maxListings;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ConcurrentHashMap<Long, String> categoryNames = new ConcurrentHashMap<>();
+
+    // Null until the first build completes, and after the catalog outgrew max-listings
+    private CatalogIndex index;
+    // Events that arrive while a rebuild is loading; replayed on top of the new index
+    private List<DomainEvent> pending;
+
+    public record Result(List<Long> listingIds, long total, List<CategoryFacetResponse> categoryFacets,
+                         long[] priceBuckets) {
+    }
+
+    private record Row(long id, long categoryId, String categoryName, BigDecimal price, Timestamp createdAt,
+                       long version) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.nanoTime();
+        CatalogIndex rebuilt = new CatalogIndex(maxListings);
+        boolean complete = load(rebuilt);
+
+        lock.writeLock().lock();
+        try {
+            List<DomainEvent> missed = pending;
+            pending = null;
+            index = complete ? rebuilt : null;
+            missed.forEach(this::apply);
+            if (index != null) {
+                log.info("Listing catalog built with {} listings in {} ms", index.size(),
+                        (System.nanoTime() - start) / 1_000_000);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean supports(DomainEvent event) {
+        return enabled && (event instanceof ListingCreated || event instanceof ListingUpdated
+                || event instanceof ListingDeleted);
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(event);
+            if (pending != null) {
+                pending.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * One page of listing ids in {@code sort} order with the total and both facets, as
+     * {@code ListingService.filterListings} computes them: category counts ignore the
+     * category filter and price buckets ignore the price filter. Empty when the catalog
+     * is not available.
+     */
+    public Optional<Result> filter(List<Long> categoryIds, BigDecimal minPrice, BigDecimal maxPrice,
+                                   List<BigDecimal> bucketBounds, ListingSort sort, int page, int size) {
+        long[] categories = categoryIds != null
+                ? categoryIds.stream().filter(Objects::nonNull).mapToLong(Long::longValue).toArray()
+                : new long[0];
+        long min = minPrice != null ? cents(minPrice, RoundingMode.CEILING) : Long.MIN_VALUE;
+        long max = maxPrice != null ? cents(maxPrice, RoundingMode.FLOOR) : Long.MAX_VALUE;
+        long[] bounds = bucketBounds.stream().mapToLong(bound -> cents(bound, RoundingMode.CEILING)).toArray();
+
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return Optional.empty();
+            }
+            CatalogIndex.Page ids = index.page(categories, min, max, sort, (long) page * size, size);
+            List<CategoryFacetResponse> facets = index.countByCategory(min, max).entrySet().stream()
+                    .sorted(Map.Entry.<Long, Long>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .map(entry -> CategoryFacetResponse.builder()
+                            .categoryId(entry.getKey())
+                            .categoryName(categoryNames.get(entry.getKey()))
+                            .count(entry.getValue())
+                            .build())
+                    .toList();
+            return Optional.of(new Result(Arrays.stream(ids.listingIds()).boxed().toList(), ids.total(), facets,
+                    index.countByPriceBuckets(categories, bounds)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index != null ? index.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean load(CatalogIndex target) {
+        long lastId = 0;
+        while (true) {
+            List<Row> rows = jdbcTemplate.query(
+                    "SELECT id, category_id, category_name, price, created_at, version FROM listing_view "
+                            + "WHERE id > ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Row(rs.getLong("id"), rs.getLong("category_id"),
+                            rs.getString("category_name"), rs.getBigDecimal("price"),
+                            rs.getTimestamp("created_at"), rs.getLong("version")),
+                    lastId, LOAD_BATCH_SIZE);
+            for (Row row : rows) {
+                categoryNames.put(row.categoryId(), row.categoryName());
+                if (!target.load(row.id(), row.categoryId(), cents(row.price(), RoundingMode.HALF_UP),
+                        epochMillis(row.createdAt()), row.version())) {
+                    log.warn("Listing catalog exceeds {} listings; filtering falls back to the database",
+                            maxListings);
+                    return false;
+                }
+            }
+            if (rows.size() < LOAD_BATCH_SIZE) {
+                target.finishLoad();
+                return true;
+            }
+            lastId = rows.get(rows.size() - 1).id();
+        }
+    }
+
+    // Called with the write lock held
+    private void apply(DomainEvent event) {
+        if (index == null) {
+            return;
+        }
+        boolean fits = switch (event) {
+            case ListingCreated created -> put(created.listing());
+            case ListingUpdated updated -> put(updated.listing());
+            case ListingDeleted deleted -> {
+                index.remove(deleted.listingId());
+                yield true;
+            }
+            default -> true;
+        };
+        if (!fits) {
+            index = null;
+            log.warn("Listing catalog exceeds {} listings; filtering falls back to the database", maxListings);
+        }
+    }
+
+    private boolean put(ListingResponse listing) {
+        categoryNames.put(listing.getCategoryId(), listing.getCategoryName());
+        LocalDateTime createdAt = listing.getCreatedAt();
+        return index.put(listing.getId(), listing.getCategoryId(), cents(listing.getPrice(), RoundingMode.HALF_UP),
+                epochMillis(createdAt != null ? Timestamp.valueOf(createdAt) : null),
+                listing.getVersion() != null ? listing.getVersion() : 0);
+    }
+
+    private static long cents(BigDecimal price, RoundingMode rounding) {
+        BigDecimal cents = price.movePointRight(2).setScale(0, rounding);
+        return cents.compareTo(MAX_CENTS) >= 0 ? Long.MAX_VALUE : cents.longValue();
+    }
+
+    private static long epochMillis(Timestamp timestamp) {
+        return timestamp != null ? timestamp.getTime() : Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,312 @@
+package com.marketkosova.catalog;
+
+import com.marketkosova.dto.ListingResponse;
+import com.marketkosova.event.*;
+import com.marketkosova.repository.ListingViewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Finds listings similar to a given one. Feature vectors (see {@link ListingVectorizer})
+ * are computed off the request path, when a listing event arrives or by the startup
+ * backfill, and stored in {@code listing_vectors}; startup only loads them into a
+ * {@link VectorIndex} and trains its centroids. The index is retrained once it has
+ * doubled since the last training.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ListingSimilarityIndex implements DomainEventConsumer {
+
+    private static final int LOAD_BATCH_SIZE = 10_000;
+    private static final int BACKFILL_BATCH_SIZE = 500;
+    // sqrt(n) groups up to this many; training cost grows with groups times listings
+    private static final int MAX_GROUPS = 512;
+    private static final int SAMPLE_PER_GROUP = 16;
+    private static final int TRAINING_ITERATIONS = 5;
+    private static final int MIN_RETRAIN_SIZE = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ListingViewRepository listingViewRepository;
+
+    @Value("${app.similar.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.similar.max-listings:1000000}")
+    private int maxListings;
+
+    @Value("${app.similar.nprobe:8}")
+    private int nprobe;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Random random = new Random();
+
+    // Null until the first build completes, and after the index outgrew max-listings
+    private VectorIndex index;
+    // Vectors written while a rebuild is loading; applied on top of the new index
+    private List<Runnable> pending;
+    private volatile boolean rebuilding;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        // Training takes a while at large sizes; similar listings are empty until it is done
+        Thread builder = new Thread(() -> {
+            rebuild();
+            backfill();
+        }, "similarity-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Loads the stored vectors into a new index, trains it and swaps it in.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                return;
+            }
+            rebuilding = true;
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.nanoTime();
+        VectorIndex rebuilt = new VectorIndex(maxListings);
+        boolean complete = load(rebuilt);
+        if (complete) {
+            int groups = Math.min(MAX_GROUPS, (int) Math.sqrt(rebuilt.size()));
+            rebuilt.train(groups, groups * SAMPLE_PER_GROUP, TRAINING_ITERATIONS, random);
+        }
+
+        lock.writeLock().lock();
+        try {
+            List<Runnable> missed = pending;
+            pending = null;
+            rebuilding = false;
+            index = complete ? rebuilt : null;
+            missed.forEach(Runnable::run);
+            if (index != null) {
+                log.info("Similarity index built with {} listings in {} ms", index.size(),
+                        (System.nanoTime() - start) / 1_000_000);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.similar.retrain-check-interval:600000}")
+    public void retrainIfGrown() {
+        int size;
+        int trainedSize;
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return;
+            }
+            size = index.size();
+            trainedSize = index.trainedSize();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (size >= MIN_RETRAIN_SIZE && size > 2L * trainedSize) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public boolean supports(DomainEvent event) {
+        return enabled && (event instanceof ListingCreated || event instanceof ListingUpdated
+                || event instanceof ListingDeleted);
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        switch (event) {
+            case ListingCreated created -> store(created.listing());
+            case ListingUpdated updated -> store(updated.listing());
+            case ListingDeleted deleted -> {
+                // The foreign key cascades on MySQL; this also covers schemas without it
+                jdbcTemplate.update("DELETE FROM listing_vectors WHERE listing_id = ?", deleted.listingId());
+                apply(() -> index.remove(deleted.listingId()));
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Ids of up to {@code limit} listings most similar to {@code listingId}, best first.
+     * Empty when the index is not available.
+     */
+    public Optional<List<Long>> similar(long listingId, int limit) {
+        byte[] vector;
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return Optional.empty();
+            }
+            vector = index.vector(listingId);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (vector == null) {
+            // Not vectorized yet (event still queued, or backfill running): compute it now
+            ListingResponse listing = listingViewRepository.findById(listingId)
+                    .orElseThrow(() -> new RuntimeException("Listing not found"));
+            vector = ListingVectorizer.vectorize(listing.getTitle(), listing.getDescription(),
+                    listing.getCategoryId(), listing.getPrice());
+        }
+
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return Optional.empty();
+            }
+            return Optional.of(Arrays.stream(index.search(vector, listingId, limit, nprobe)).boxed().toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index != null ? index.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void store(ListingResponse listing) {
+        byte[] vector = ListingVectorizer.vectorize(listing.getTitle(), listing.getDescription(),
+                listing.getCategoryId(), listing.getPrice());
+        try {
+            upsert(List.<Object[]>of(new Object[]{listing.getId(), vector, ListingVectorizer.VERSION,
+                    listing.getVersion() != null ? listing.getVersion() : 0}));
+        } catch (DataIntegrityViolationException e) {
+            // Deleted before its event was handled
+            return;
+        }
+        apply(() -> {
+            if (!index.put(listing.getId(), vector)) {
+                disable();
+            }
+        });
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                change.run();
+            }
+            if (pending != null) {
+                pending.add(() -> {
+                    if (index != null) {
+                        change.run();
+                    }
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Called with the write lock held
+    private void disable() {
+        index = null;
+        log.warn("Similarity index exceeds {} listings; similar listings are disabled", maxListings);
+    }
+
+    private boolean load(VectorIndex target) {
+        long lastId = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(
+                    "SELECT listing_id, vector FROM listing_vectors WHERE features_version = ? AND listing_id > ? "
+                            + "ORDER BY listing_id LIMIT ?",
+                    (rs, rowNum) -> new Object[]{rs.getLong("listing_id"), rs.getBytes("vector")},
+                    ListingVectorizer.VERSION, lastId, LOAD_BATCH_SIZE);
+            for (Object[] row : rows) {
+                byte[] vector = (byte[]) row[1];
+                if (vector.length == ListingVectorizer.DIMENSIONS && !target.put((long) row[0], vector)) {
+                    log.warn("Similarity index exceeds {} listings; similar listings are disabled", maxListings);
+                    return false;
+                }
+            }
+            if (rows.size() < LOAD_BATCH_SIZE) {
+                return true;
+            }
+            lastId = (long) rows.get(rows.size() - 1)[0];
+        }
+    }
+
+    /**
+     * Computes vectors for listings that have none, or whose vector predates the current
+     * features or the listing's last edit.
+     */
+    private void backfill() {
+        long lastId = 0;
+        int computed = 0;
+        try {
+            while (true) {
+                List<Object[]> rows = jdbcTemplate.query(
+                        "SELECT lv.id, lv.title, lv.description, lv.category_id, lv.price, lv.version "
+                                + "FROM listing_view lv LEFT JOIN listing_vectors v ON v.listing_id = lv.id "
+                                + "WHERE lv.id > ? AND (v.listing_id IS NULL OR v.features_version <> ? "
+                                + "OR v.listing_version < lv.version) ORDER BY lv.id LIMIT ?",
+                        (rs, rowNum) -> new Object[]{rs.getLong("id"),
+                                ListingVectorizer.vectorize(rs.getString("title"), rs.getString("description"),
+                                        rs.getLong("category_id"), rs.getBigDecimal("price")),
+                                ListingVectorizer.VERSION, rs.getLong("version")},
+                        lastId, ListingVectorizer.VERSION, BACKFILL_BATCH_SIZE);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                upsert(rows);
+                apply(() -> {
+                    for (Object[] row : rows) {
+                        if (!index.put((long) row[0], (byte[]) row[1])) {
+                            disable();
+                            return;
+                        }
+                    }
+                });
+                computed += rows.size();
+                lastId = (long) rows.get(rows.size() - 1)[0];
+            }
+        } catch (RuntimeException e) {
+            log.error("Similarity backfill stopped after {} listings", computed, e);
+            return;
+        }
+        if (computed > 0) {
+            log.info("Computed {} listing vectors", computed);
+            retrainIfGrown();
+        }
+    }
+
+    private void upsert(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO listing_vectors (listing_id, vector, features_version, listing_version) "
+                + "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE vector = VALUES(vector), "
+                + "features_version = VALUES(features_version), listing_version = VALUES(listing_version)", rows);
+    }
+}
@@ -0,0 +1,105 @@
+package com.marketkosova.catalog;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a listing into a fixed-size feature vector for similarity search. Words of
+ * the title and description, the category and a log-scale price band are hashed into
+ * {@value #DIMENSIONS} signed buckets (the hashing trick, so there is no vocabulary to
+ * keep), the vector is scaled to unit length and stored as one signed byte per
+ * dimension. The dot product of two vectors, divided by {@code 127 * 127}, approximates
+ * their cosine similarity.
+ * <p>
+ * Stored vectors carry {@link #VERSION}; changing the features must bump it so
+ * existing rows are recomputed.
+ */
+public final class ListingVectorizer {
+
+    public static final int DIMENSIONS = 128;
+    public static final int VERSION = 1;
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "and", "for", "with", "in", "of", "to", "is", "on", "at", "it", "from",
+            "dhe", "me", "në", "një", "të", "për", "nga", "që", "se", "si", "ka", "janë", "është");
+
+    private static final float TITLE_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final float CATEGORY_WEIGHT = 4.0f;
+    private static final float PRICE_WEIGHT = 2.0f;
+    // Longer descriptions should not drown out the title
+    private static final int MAX_DESCRIPTION_WORDS = 200;
+
+    private ListingVectorizer() {
+    }
+
+    public static byte[] vectorize(String title, String description, Long categoryId, BigDecimal price) {
+        float[] features = new float[DIMENSIONS];
+        addWords(features, title, TITLE_WEIGHT, Integer.MAX_VALUE);
+        addWords(features, description, DESCRIPTION_WEIGHT, MAX_DESCRIPTION_WORDS);
+        if (categoryId != null) {
+            add(features, "c:" + categoryId, CATEGORY_WEIGHT);
+        }
+        if (price != null) {
+            // Half-octave bands; neighbouring bands share some weight so 95 and 105 stay close
+            int band = (int) Math.round(2 * Math.log(Math.max(price.doubleValue(), 0) + 1) / Math.log(2));
+            add(features, "p:" + band, PRICE_WEIGHT);
+            add(features, "p:" + (band - 1), PRICE_WEIGHT / 2);
+            add(features, "p:" + (band + 1), PRICE_WEIGHT / 2);
+        }
+        return quantize(features);
+    }
+
+    /**
+     * Dot product of two quantized vectors; {@code 127 * 127} for identical unit vectors.
+     */
+    public static int dot(byte[] a, int aOffset, byte[] b, int bOffset) {
+        int sum = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    private static void addWords(float[] features, String text, float weight, int maxWords) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        int words = 0;
+        for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (word.length() < 2 || STOP_WORDS.contains(word)) {
+                continue;
+            }
+            add(features, "w:" + word, weight);
+            if (++words >= maxWords) {
+                return;
+            }
+        }
+    }
+
+    private static void add(float[] features, String feature, float weight) {
+        // String.hashCode is specified, so stored vectors stay valid across JVMs
+        int h = feature.hashCode() * 0x9E3779B1;
+        h ^= h >>> 15;
+        features[(h & 0x7fffffff) % DIMENSIONS] += (h & 0x10000) == 0 ? weight : -weight;
+    }
+
+    private static byte[] quantize(float[] features) {
+        double norm = 0;
+        for (float f : features) {
+            norm += f * f;
+        }
+        byte[] vector = new byte[DIMENSIONS];
+        if (norm == 0) {
+            return vector;
+        }
+        double scale = 127 / Math.sqrt(norm);
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (byte) Math.round(features[i] * scale);
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,298 @@
+package com.marketkosova.catalog;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static com.marketkosova.catalog.ListingVectorizer.DIMENSIONS;
+
+/**
+ * Approximate nearest-neighbour index over quantized listing vectors (an inverted file:
+ * vectors are grouped by their closest centroid, and a query only scans the groups of
+ * the {@code nprobe} centroids closest to it). Centroids come from spherical k-means on
+ * a sample in {@link #train}; vectors added later join their closest existing group,
+ * so the index stays usable between trainings and only degrades slowly as it grows.
+ * <p>
+ * Vectors live in one flat {@code byte[]}, {@value ListingVectorizer#DIMENSIONS} bytes
+ * per listing. Not thread-safe; {@link ListingSimilarityIndex} guards it.
+ */
+class VectorIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int maxListings;
+    private final LongIntMap slotsById = new LongIntMap();
+
+    private byte[] vectors = new byte[INITIAL_CAPACITY * DIMENSIONS];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] groupOf = new int[INITIAL_CAPACITY];
+    private int[] positionInGroup = new int[INITIAL_CAPACITY];
+    private int slotCount;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    // Until the first training everything sits in one group, which makes search exact
+    private byte[] centroids = new byte[DIMENSIONS];
+    private int groupCount = 1;
+    private int[][] groups = {new int[16]};
+    private int[] groupSizes = new int[1];
+    private int trainedSize;
+
+    VectorIndex(int maxListings) {
+        this.maxListings = maxListings;
+    }
+
+    int size() {
+        return slotsById.size();
+    }
+
+    /**
+     * Number of vectors when the centroids were last trained.
+     */
+    int trainedSize() {
+        return trainedSize;
+    }
+
+    /**
+     * Adds or replaces the vector of a listing. Returns {@code false} when the index is full.
+     */
+    boolean put(long id, byte[] vector) {
+        int slot = slotsById.get(id);
+        if (slot >= 0) {
+            unlink(slot);
+        } else {
+            if (slotsById.size() >= maxListings) {
+                return false;
+            }
+            slot = allocate();
+            slotsById.put(id, slot);
+        }
+        ids[slot] = id;
+        System.arraycopy(vector, 0, vectors, slot * DIMENSIONS, DIMENSIONS);
+        link(slot, closestGroup(vectors, slot * DIMENSIONS));
+        return true;
+    }
+
+    void remove(long id) {
+        int slot = slotsById.remove(id);
+        if (slot < 0) {
+            return;
+        }
+        unlink(slot);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    byte[] vector(long id) {
+        int slot = slotsById.get(id);
+        return slot >= 0 ? Arrays.copyOfRange(vectors, slot * DIMENSIONS, (slot + 1) * DIMENSIONS) : null;
+    }
+
+    /**
+     * Up to {@code limit} listing ids most similar to {@code query}, best first, leaving
+     * out {@code excludeId}.
+     */
+    long[] search(byte[] query, long excludeId, int limit, int nprobe) {
+        int probes = Math.min(nprobe, groupCount);
+        int[] probeGroups = top(centroidScores(query), probes);
+
+        long[] bestIds = new long[limit];
+        int[] bestScores = new int[limit];
+        int found = 0;
+        for (int group : probeGroups) {
+            int[] members = groups[group];
+            for (int i = 0; i < groupSizes[group]; i++) {
+                int slot = members[i];
+                if (ids[slot] == excludeId) {
+                    continue;
+                }
+                int score = ListingVectorizer.dot(query, 0, vectors, slot * DIMENSIONS);
+                if (found == limit && score <= bestScores[limit - 1]) {
+                    continue;
+                }
+                // Insertion into the short sorted result arrays
+                int pos = found < limit ? found++ : limit - 1;
+                while (pos > 0 && bestScores[pos - 1] < score) {
+                    bestScores[pos] = bestScores[pos - 1];
+                    bestIds[pos] = bestIds[pos - 1];
+                    pos--;
+                }
+                bestScores[pos] = score;
+                bestIds[pos] = ids[slot];
+            }
+        }
+        return found == limit ? bestIds : Arrays.copyOf(bestIds, found);
+    }
+
+    /**
+     * Replaces the centroids by spherical k-means over a sample of up to
+     * {@code sampleSize} vectors and regroups every vector.
+     */
+    void train(int groups, int sampleSize, int iterations, Random random) {
+        int[] live = liveSlots();
+        if (live.length == 0) {
+            return;
+        }
+        int k = Math.max(1, Math.min(groups, live.length));
+        int[] sample = sample(live, Math.max(k, Math.min(sampleSize, live.length)), random);
+
+        byte[] trained = new byte[k * DIMENSIONS];
+        for (int c = 0; c < k; c++) {
+            System.arraycopy(vectors, sample[c] * DIMENSIONS, trained, c * DIMENSIONS, DIMENSIONS);
+        }
+        centroids = trained;
+        groupCount = k;
+
+        int[] assignment = new int[sample.length];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (int i = 0; i < sample.length; i++) {
+                assignment[i] = closestGroup(vectors, sample[i] * DIMENSIONS);
+            }
+            long[] sums = new long[k * DIMENSIONS];
+            int[] counts = new int[k];
+            for (int i = 0; i < sample.length; i++) {
+                int c = assignment[i];
+                counts[c]++;
+                int offset = sample[i] * DIMENSIONS;
+                for (int d = 0; d < DIMENSIONS; d++) {
+                    sums[c * DIMENSIONS + d] += vectors[offset + d];
+                }
+            }
+            for (int c = 0; c < k; c++) {
+                if (counts[c] == 0) {
+                    // Empty cluster: restart it from a random sample vector
+                    System.arraycopy(vectors, sample[random.nextInt(sample.length)] * DIMENSIONS,
+                            centroids, c * DIMENSIONS, DIMENSIONS);
+                } else {
+                    normalize(sums, c * DIMENSIONS, centroids);
+                }
+            }
+        }
+
+        this.groups = new int[k][];
+        groupSizes = new int[k];
+        for (int c = 0; c < k; c++) {
+            this.groups[c] = new int[16];
+        }
+        // Regrouping compares every vector with every centroid, the bulk of the training time
+        int[] closest = IntStream.of(live).parallel().map(slot -> closestGroup(vectors, slot * DIMENSIONS)).toArray();
+        for (int i = 0; i < live.length; i++) {
+            link(live[i], closest[i]);
+        }
+        trainedSize = live.length;
+    }
+
+    private int[] centroidScores(byte[] query) {
+        int[] scores = new int[groupCount];
+        for (int c = 0; c < groupCount; c++) {
+            scores[c] = ListingVectorizer.dot(query, 0, centroids, c * DIMENSIONS);
+        }
+        return scores;
+    }
+
+    private int closestGroup(byte[] source, int offset) {
+        int best = 0;
+        int bestScore = Integer.MIN_VALUE;
+        for (int c = 0; c < groupCount; c++) {
+            int score = ListingVectorizer.dot(source, offset, centroids, c * DIMENSIONS);
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Indexes of the {@code n} highest scores.
+     */
+    private static int[] top(int[] scores, int n) {
+        int[] best = new int[n];
+        int found = 0;
+        for (int i = 0; i < scores.length; i++) {
+            if (found == n && scores[i] <= scores[best[n - 1]]) {
+                continue;
+            }
+            int pos = found < n ? found++ : n - 1;
+            while (pos > 0 && scores[best[pos - 1]] < scores[i]) {
+                best[pos] = best[pos - 1];
+                pos--;
+            }
+            best[pos] = i;
+        }
+        return found == n ? best : Arrays.copyOf(best, found);
+    }
+
+    private static void normalize(long[] sums, int offset, byte[] target) {
+        double norm = 0;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            norm += (double) sums[offset + d] * sums[offset + d];
+        }
+        double scale = norm > 0 ? 127 / Math.sqrt(norm) : 0;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            target[offset + d] = (byte) Math.round(sums[offset + d] * scale);
+        }
+    }
+
+    private int[] liveSlots() {
+        int[] live = new int[slotsById.size()];
+        boolean[] free = new boolean[slotCount];
+        for (int i = 0; i < freeCount; i++) {
+            free[freeSlots[i]] = true;
+        }
+        int n = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (!free[slot]) {
+                live[n++] = slot;
+            }
+        }
+        return live;
+    }
+
+    private static int[] sample(int[] slots, int size, Random random) {
+        int[] shuffled = slots.clone();
+        // Partial Fisher-Yates: the first `size` entries end up a uniform sample
+        for (int i = 0; i < size; i++) {
+            int j = i + random.nextInt(shuffled.length - i);
+            int tmp = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = tmp;
+        }
+        return Arrays.copyOf(shuffled, size);
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == ids.length) {
+            int capacity = (int) Math.min((long) ids.length * 2, Math.max(maxListings, INITIAL_CAPACITY));
+            vectors = Arrays.copyOf(vectors, capacity * DIMENSIONS);
+            ids = Arrays.copyOf(ids, capacity);
+            groupOf = Arrays.copyOf(groupOf, capacity);
+            positionInGroup = Arrays.copyOf(positionInGroup, capacity);
+        }
+        return slotCount++;
+    }
+
+    private void link(int slot, int group) {
+        int size = groupSizes[group];
+        if (size == groups[group].length) {
+            groups[group] = Arrays.copyOf(groups[group], size * 2);
+        }
+        groups[group][size] = slot;
+        groupOf[slot] = group;
+        positionInGroup[slot] = size;
+        groupSizes[group] = size + 1;
+    }
+
+    private void unlink(int slot) {
+        int group = groupOf[slot];
+        int last = --groupSizes[group];
+        int moved = groups[group][last];
+        groups[group][positionInGroup[slot]] = moved;
+        positionInGroup[moved] = positionInGroup[slot];
+    }
+}
@@ -0,0 +1,34 @@
+package com.marketkosova.config;
+
+import com.marketkosova.jobs.ExpiredRowPurgeJob;
+import com.marketkosova.jobs.MaintenanceJob;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Table cleanups run by {@link com.marketkosova.jobs.JobScheduler}. Jobs with more logic
+ * implement {@link MaintenanceJob} themselves, e.g. MessageArchiver.
+ */
+@Configuration
+public class MaintenanceJobConfig {
+
+    private static final int PURGE_CHUNK_SIZE = 1000;
+
+    @Bean
+    public MaintenanceJob idempotencyKeyPurge(JdbcTemplate jdbcTemplate,
+                                              @Value("${app.idempotency.purge-interval:600000}") long interval,
+                                              @Value("${app.idempotency.shared-store:true}") boolean sharedStore) {
+        return new ExpiredRowPurgeJob("idempotency-key-purge", "idempotency_keys", "expires_at", interval, sharedStore,
+                PURGE_CHUNK_SIZE, jdbcTemplate);
+    }
+
+    // Expired refresh tokens are refused anyway; the rows only grow the table and its indexes
+    @Bean
+    public MaintenanceJob refreshTokenPurge(JdbcTemplate jdbcTemplate,
+                                            @Value("${app.jobs.refresh-token-purge.interval:3600000}") long interval) {
+        return new ExpiredRowPurgeJob("refresh-token-purge", "refresh_tokens", "expires_at", interval, true,
+                PURGE_CHUNK_SIZE, jdbcTemplate);
+    }
+}
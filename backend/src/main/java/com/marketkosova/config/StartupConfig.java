@@ -0,0 +1,56 @@
+package com.marketkosova.config;
+
+import com.marketkosova.dto.MessageResponse;
+import com.marketkosova.event.DomainEvent;
+import com.marketkosova.repository.ConversationMembership;
+import com.marketkosova.repository.ListingActivity;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Settings for the fast-start build ({@code -Pfast-start}) and the optional
+ * native image ({@code -Pnative}).
+ */
+@Configuration
+@ImportRuntimeHints(StartupConfig.MarketKosovaRuntimeHints.class)
+public class StartupConfig {
+
+    /**
+     * With {@code spring.main.lazy-initialization=true} beans are created on first use,
+     * but a bean with {@code @Scheduled} methods would then never be scheduled.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter scheduledBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> beanType != null && !MethodIntrospector.selectMethods(beanType,
+                (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                        AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty();
+    }
+
+    /**
+     * What AOT cannot discover on its own: classpath data files, classes that JPQL
+     * constructor expressions instantiate reflectively and the domain events stored as
+     * JSON in the outbox.
+     */
+    static class MarketKosovaRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.resources().registerPattern("geo/*.csv");
+            for (Class<?> type : new Class<?>[]{MessageResponse.class, ConversationMembership.class,
+                    ListingActivity.class}) {
+                hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            }
+            new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                    DomainEvent.class.getPermittedSubclasses());
+        }
+    }
+}
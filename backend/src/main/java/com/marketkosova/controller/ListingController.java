@@ -1,10 +1,18 @@
 package com.marketkosova.controller;
 
+import com.marketkosova.dto.ListingFilterRequest;
+import com.marketkosova.dto.ListingPatchRequest;
 import com.marketkosova.dto.ListingRequest;
 import com.marketkosova.dto.ListingResponse;
+import com.marketkosova.dto.ListingSearchResponse;
+import com.marketkosova.dto.ListingView;
+import com.marketkosova.exception.PreconditionFailedException;
+import com.marketkosova.service.IdempotencyService;
+import com.marketkosova.service.ListingMapper;
 import com.marketkosova.service.ListingService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -20,23 +28,79 @@ import java.util.List;
 public class ListingController {
 
     private final ListingService listingService;
+    private final ListingMapper listingMapper;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping
     public ResponseEntity<List<ListingResponse>> getAllListings(
             @RequestParam(required = false) Long categoryId,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String view) {
+        ListingView listingView = ListingView.from(view);
         if (search != null && !search.trim().isEmpty()) {
-            return ResponseEntity.ok(listingService.searchListings(search));
+            return ResponseEntity.ok(listingMapper.toView(listingService.searchListings(search, categoryId), listingView));
         }
         if (categoryId != null) {
-            return ResponseEntity.ok(listingService.getListingsByCategory(categoryId));
+            return ResponseEntity.ok(listingMapper.toView(listingService.getListingsByCategory(categoryId), listingView));
         }
-        return ResponseEntity.ok(listingService.getAllListings());
+        return ResponseEntity.ok(listingMapper.toView(listingService.getAllListings(), listingView));
+    }
+
+    @GetMapping("/feed")
+    public ResponseEntity<List<ListingResponse>> getFeed(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String view) {
+        return ResponseEntity.ok(listingMapper.toView(listingService.getFeed(categoryId), ListingView.from(view)));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<ListingResponse>> getTrending(@RequestParam(required = false) String view) {
+        return ResponseEntity.ok(listingMapper.toView(listingService.getTrending(), ListingView.from(view)));
+    }
+
+    @GetMapping("/filter")
+    public ResponseEntity<ListingSearchResponse> filterListings(
+            @Valid @ModelAttribute ListingFilterRequest filter,
+            @RequestParam(required = false) String view) {
+        return ResponseEntity.ok(listingMapper.toView(listingService.filterListings(filter), ListingView.from(view)));
+    }
+
+    @GetMapping("/nearby")
+    public ResponseEntity<List<ListingResponse>> getNearbyListings(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "10") double radiusKm,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String view) {
+        return ResponseEntity.ok(listingMapper.toView(listingService.findNearby(lat, lng, radiusKm, limit), ListingView.from(view)));
+    }
+
+    @GetMapping("/within")
+    public ResponseEntity<List<ListingResponse>> getListingsWithinBounds(
+            @RequestParam double minLat,
+            @RequestParam double minLng,
+            @RequestParam double maxLat,
+            @RequestParam double maxLng,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String view) {
+        List<ListingResponse> listings = listingService.findWithinBounds(minLat, minLng, maxLat, maxLng, lat, lng, limit);
+        return ResponseEntity.ok(listingMapper.toView(listings, ListingView.from(view)));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ListingResponse> getListingById(@PathVariable Long id) {
-        return ResponseEntity.ok(listingService.getListingById(id));
+        return withETag(listingService.getListingById(id));
+    }
+
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<ListingResponse>> getSimilarListings(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "8") int limit,
+            @RequestParam(required = false) String view) {
+        List<ListingResponse> listings = listingService.getSimilarListings(id, limit);
+        return ResponseEntity.ok(listingMapper.toView(listings, ListingView.from(view)));
     }
 
     @GetMapping("/my")
@@ -48,8 +112,15 @@ public class ListingController {
     public ResponseEntity<ListingResponse> createListing(
             @Valid @ModelAttribute ListingRequest request,
             @RequestParam(value = "imageFile", required = false) MultipartFile image,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
-        return ResponseEntity.ok(listingService.createListing(request, image, authentication.getName()));
+        String fingerprint = IdempotencyService.fingerprint(request.getTitle(), request.getDescription(),
+                request.getPrice(), request.getLocation(), request.getCategoryId(), request.getLatitude(),
+                request.getLongitude(), image != null ? image.getOriginalFilename() : null,
+                image != null ? image.getSize() : null);
+        return idempotencyService.execute("listing:create", authentication.getName(), idempotencyKey, fingerprint,
+                ListingResponse.class, () -> listingService.createListing(request, image, authentication.getName()))
+                .toResponseEntity();
     }
 
     @PutMapping(value = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -57,8 +128,19 @@ public class ListingController {
             @PathVariable Long id,
             @Valid @ModelAttribute ListingRequest request,
             @RequestParam(value = "imageFile", required = false) MultipartFile image,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Authentication authentication) {
-        return ResponseEntity.ok(listingService.updateListing(id, request, image, authentication.getName()));
+        return withETag(listingService.updateListing(id, request, image, authentication.getName(),
+                expectedVersion(ifMatch)));
+    }
+
+    @PatchMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ListingResponse> patchListing(
+            @PathVariable Long id,
+            @Valid @RequestBody ListingPatchRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            Authentication authentication) {
+        return withETag(listingService.patchListing(id, request, authentication.getName(), expectedVersion(ifMatch)));
     }
 
     @DeleteMapping("/{id}")
@@ -68,4 +150,32 @@ public class ListingController {
         listingService.deleteListing(id, authentication.getName(), isAdmin);
         return ResponseEntity.ok().build();
     }
+
+    private static ResponseEntity<ListingResponse> withETag(ListingResponse listing) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (listing.getVersion() != null) {
+            response.eTag("\"" + listing.getVersion() + "\"");
+        }
+        return response.body(listing);
+    }
+
+    /**
+     * The version an {@code If-Match: "<version>"} header requires, or {@code null}
+     * for an unconditional update ({@code *} or no header).
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.parseLong(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            // An entity tag we never issued cannot match
+            throw new PreconditionFailedException("If-Match does not match the current listing version");
+        }
+    }
 }
@@ -3,11 +3,15 @@ package com.marketkosova.controller;
 import com.marketkosova.dto.ConversationResponse;
 import com.marketkosova.dto.MessageRequest;
 import com.marketkosova.dto.MessageResponse;
+import com.marketkosova.dto.UnreadCountResponse;
+import com.marketkosova.security.AuthenticatedUser;
+import com.marketkosova.service.IdempotencyService;
 import com.marketkosova.service.MessageService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -18,6 +22,7 @@ import java.util.List;
 public class MessageController {
 
     private final MessageService messageService;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping("/conversations")
     public ResponseEntity<List<ConversationResponse>> getConversations(Authentication authentication) {
@@ -34,22 +39,42 @@ public class MessageController {
     @GetMapping("/conversations/{id}")
     public ResponseEntity<ConversationResponse> getConversation(
             @PathVariable Long id,
-            Authentication authentication) {
-        return ResponseEntity.ok(messageService.getConversationById(id, authentication.getName()));
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(messageService.getConversationById(id, user));
     }
 
     @GetMapping("/conversations/{id}/messages")
     public ResponseEntity<List<MessageResponse>> getMessages(
             @PathVariable Long id,
-            Authentication authentication) {
-        return ResponseEntity.ok(messageService.getMessages(id, authentication.getName()));
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "100") int limit,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(messageService.getMessages(id, beforeId, limit, user));
+    }
+
+    @PostMapping("/conversations/{id}/read")
+    public ResponseEntity<Void> markAsRead(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long messageId,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        messageService.markAsRead(id, messageId, user);
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/unread-count")
+    public ResponseEntity<UnreadCountResponse> getUnreadCount(@AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(messageService.getUnreadCount(user));
     }
 
     @PostMapping("/conversations/{id}/messages")
     public ResponseEntity<MessageResponse> sendMessage(
             @PathVariable Long id,
             @Valid @RequestBody MessageRequest request,
-            Authentication authentication) {
-        return ResponseEntity.ok(messageService.sendMessage(id, request.getContent(), authentication.getName()));
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        return idempotencyService.execute("message:send:" + id, user.getName(), idempotencyKey,
+                IdempotencyService.fingerprint(request.getContent()), MessageResponse.class,
+                () -> messageService.sendMessage(id, request.getContent(), user))
+                .toResponseEntity();
     }
 }
@@ -10,6 +10,7 @@ import lombok.*;
 public class AuthResponse {
 
     private String token;
+    private String refreshToken;
     private String username;
     private String email;
     private String role;
@@ -0,0 +1,15 @@
+package com.marketkosova.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategoryFacetResponse {
+
+    private Long categoryId;
+    private String categoryName;
+    private long count;
+}
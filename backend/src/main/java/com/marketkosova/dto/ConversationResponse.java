@@ -20,4 +20,6 @@ public class ConversationResponse {
     private String lastMessage;
     private LocalDateTime lastMessageAt;
     private LocalDateTime createdAt;
+    private int unreadCount;
+    private Long otherLastReadMessageId;
 }
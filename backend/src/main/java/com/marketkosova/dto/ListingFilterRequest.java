@@ -0,0 +1,37 @@
+package com.marketkosova.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListingFilterRequest {
+
+    private List<Long> categoryIds;
+
+    @DecimalMin(value = "0", message = "Minimum price must not be negative")
+    private BigDecimal minPrice;
+
+    @DecimalMin(value = "0", message = "Maximum price must not be negative")
+    private BigDecimal maxPrice;
+
+    @Size(max = 200, message = "Location must be less than 200 characters")
+    private String location;
+
+    @Size(max = 200, message = "Search must be less than 200 characters")
+    private String search;
+
+    private String sort;
+
+    @Min(value = 0, message = "Page must not be negative")
+    private int page = 0;
+
+    @Min(value = 1, message = "Size must be at least 1")
+    @Max(value = 100, message = "Size must be at most 100")
+    private int size = 20;
+}
@@ -0,0 +1,38 @@
+package com.marketkosova.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Partial listing update: {@code null} fields are left unchanged.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListingPatchRequest {
+
+    @Pattern(regexp = ".*\\S.*", message = "Title must not be blank")
+    @Size(max = 200, message = "Title must be less than 200 characters")
+    private String title;
+
+    private String description;
+
+    @DecimalMin(value = "0.01", message = "Price must be greater than 0")
+    private BigDecimal price;
+
+    @Size(max = 200, message = "Location must be less than 200 characters")
+    private String location;
+
+    private Long categoryId;
+
+    @DecimalMin(value = "-90", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90", message = "Latitude must be between -90 and 90")
+    private Double latitude;
+
+    @DecimalMin(value = "-180", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180", message = "Longitude must be between -180 and 180")
+    private Double longitude;
+}
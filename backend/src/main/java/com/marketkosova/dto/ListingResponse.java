@@ -1,5 +1,6 @@
 package com.marketkosova.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.math.BigDecimal;
@@ -9,7 +10,7 @@ import java.time.LocalDateTime;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class ListingResponse {
 
     private Long id;
@@ -23,4 +24,13 @@ public class ListingResponse {
     private String username;
     private Long categoryId;
     private String categoryName;
+    private Double latitude;
+    private Double longitude;
+    private Long version;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double distanceKm;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long viewCount;
 }
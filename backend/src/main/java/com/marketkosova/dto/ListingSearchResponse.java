@@ -0,0 +1,21 @@
+package com.marketkosova.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ListingSearchResponse {
+
+    private List<ListingResponse> listings;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+    private List<CategoryFacetResponse> categoryFacets;
+    private List<PriceBucketResponse> priceBuckets;
+}
@@ -0,0 +1,31 @@
+package com.marketkosova.dto;
+
+import org.springframework.data.domain.Sort;
+
+public enum ListingSort {
+    NEWEST(Sort.by(Sort.Direction.DESC, "createdAt")),
+    OLDEST(Sort.by(Sort.Direction.ASC, "createdAt")),
+    PRICE_ASC(Sort.by(Sort.Direction.ASC, "price").and(Sort.by(Sort.Direction.DESC, "createdAt"))),
+    PRICE_DESC(Sort.by(Sort.Direction.DESC, "price").and(Sort.by(Sort.Direction.DESC, "createdAt")));
+
+    private final Sort sort;
+
+    ListingSort(Sort sort) {
+        this.sort = sort;
+    }
+
+    public Sort toSort() {
+        return sort;
+    }
+
+    public static ListingSort from(String value) {
+        if (value == null || value.isBlank()) {
+            return NEWEST;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unknown sort: " + value);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.marketkosova.dto;
+
+public enum ListingView {
+    FULL,
+    SUMMARY;
+
+    public static ListingView from(String value) {
+        if (value == null || value.isBlank()) {
+            return FULL;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unknown view: " + value);
+        }
+    }
+}
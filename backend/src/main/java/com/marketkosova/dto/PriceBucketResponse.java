@@ -0,0 +1,17 @@
+package com.marketkosova.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PriceBucketResponse {
+
+    private BigDecimal min;
+    private BigDecimal max;
+    private long count;
+}
@@ -0,0 +1,13 @@
+package com.marketkosova.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UnreadCountResponse {
+
+    private long unreadCount;
+}
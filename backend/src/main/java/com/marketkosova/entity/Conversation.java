@@ -39,4 +39,17 @@ public class Conversation {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    // Read state is written with targeted UPDATEs in MessageWriter and ConversationRepository
+    @Column(name = "buyer_last_read_message_id")
+    private Long buyerLastReadMessageId;
+
+    @Column(name = "seller_last_read_message_id")
+    private Long sellerLastReadMessageId;
+
+    @Column(name = "buyer_unread_count", nullable = false)
+    private int buyerUnreadCount;
+
+    @Column(name = "seller_unread_count", nullable = false)
+    private int sellerUnreadCount;
 }
@@ -3,12 +3,15 @@ package com.marketkosova.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "listings")
+// UPDATEs only set the columns that changed, so partial edits stay small
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
@@ -35,10 +38,17 @@ public class Listing {
     @Column(length = 500)
     private String image;
 
+    private Double latitude;
+
+    private Double longitude;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    @Version
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
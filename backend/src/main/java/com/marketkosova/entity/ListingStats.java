@@ -0,0 +1,26 @@
+package com.marketkosova.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "listing_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ListingStats {
+
+    @Id
+    @Column(name = "listing_id")
+    private Long listingId;
+
+    @Column(name = "view_count", nullable = false)
+    private long viewCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,5 @@
+package com.marketkosova.event;
+
+public record ConversationStarted(long conversationId, long listingId, long buyerId, long sellerId)
+        implements DomainEvent {
+}
@@ -0,0 +1,17 @@
+package com.marketkosova.event;
+
+/**
+ * Something that happened to a listing or conversation, published once the
+ * transaction that caused it has committed.
+ */
+public sealed interface DomainEvent
+        permits ListingCreated, ListingUpdated, ListingDeleted, ConversationStarted, MessageSent {
+
+    /**
+     * Whether the event is written to the outbox in the publishing transaction,
+     * so it is redelivered after a crash.
+     */
+    default boolean durable() {
+        return true;
+    }
+}
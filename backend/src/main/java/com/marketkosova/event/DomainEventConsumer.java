@@ -0,0 +1,13 @@
+package com.marketkosova.event;
+
+/**
+ * Receives domain events on its own worker thread, in publication order. Events
+ * are delivered at least once (outbox replay after a crash), so handlers must be
+ * idempotent.
+ */
+public interface DomainEventConsumer {
+
+    boolean supports(DomainEvent event);
+
+    void onEvent(DomainEvent event);
+}
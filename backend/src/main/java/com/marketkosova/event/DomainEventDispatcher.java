@@ -0,0 +1,292 @@
+package com.marketkosova.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers domain events to every {@link DomainEventConsumer} bean. Each consumer
+ * has its own bounded queue and worker thread, so a slow consumer only delays
+ * itself. When a queue stays full for {@code app.events.offer-timeout-ms} the consumer
+ * falls behind: its events are no longer queued but left in the outbox, where they are
+ * already durable, and a scheduled catch-up feeds them back in id order once the queue
+ * has room. Publishers, which run on request threads, never wait longer than the timeout
+ * and events are never handled out of order on the publishing thread.
+ * <p>
+ * Outbox rows of fully handled events are deleted in batches; rows left over
+ * from a previous run are replayed on startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DomainEventDispatcher {
+
+    private static final int DELETE_CHUNK_SIZE = 500;
+
+    private final List<DomainEventConsumer> consumers;
+    private final EventOutbox outbox;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.events.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.events.replay-batch-size:500}")
+    private int replayBatchSize;
+
+    @Value("${app.events.offer-timeout-ms:50}")
+    private long offerTimeoutMillis;
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final ConcurrentLinkedQueue<Long> handled = new ConcurrentLinkedQueue<>();
+    private volatile boolean running;
+
+    private record Envelope(long outboxId, DomainEvent event, long publishedAtMillis, AtomicInteger remaining) {
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        for (DomainEventConsumer consumer : consumers) {
+            workers.add(new Worker(consumer));
+        }
+    }
+
+    public void dispatch(long outboxId, DomainEvent event, LocalDateTime publishedAt) {
+        List<Worker> targets = new ArrayList<>(workers.size());
+        for (Worker worker : workers) {
+            if (worker.consumer.supports(event)) {
+                targets.add(worker);
+            }
+        }
+        meterRegistry.counter("events.published", "type", event.getClass().getSimpleName()).increment();
+        long publishedAtMillis = publishedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Envelope envelope = new Envelope(outboxId, event, publishedAtMillis, new AtomicInteger(targets.size()));
+        if (targets.isEmpty()) {
+            markHandled(envelope);
+        }
+        for (Worker worker : targets) {
+            worker.submit(envelope);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void replay() {
+        int replayed = 0;
+        long afterId = 0;
+        List<EventOutbox.StoredEvent> page;
+        do {
+            page = outbox.findAfter(afterId, replayBatchSize);
+            for (EventOutbox.StoredEvent stored : page) {
+                dispatch(stored.id(), stored.event(), stored.createdAt());
+                afterId = stored.id();
+            }
+            replayed += page.size();
+        } while (page.size() == replayBatchSize);
+        if (replayed > 0) {
+            log.info("Replayed {} undelivered domain events from the outbox", replayed);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.events.outbox-flush-interval:1000}")
+    public void deleteHandled() {
+        List<Long> ids = new ArrayList<>(DELETE_CHUNK_SIZE);
+        Long id;
+        while ((id = handled.poll()) != null) {
+            ids.add(id);
+            if (ids.size() == DELETE_CHUNK_SIZE) {
+                outbox.delete(ids);
+                ids.clear();
+            }
+        }
+        outbox.delete(ids);
+    }
+
+    /**
+     * Feeds consumers that fell behind the events they skipped, from the outbox.
+     */
+    @Scheduled(fixedDelayString = "${app.events.catch-up-interval:1000}")
+    public void catchUp() {
+        for (Worker worker : workers) {
+            if (worker.behind) {
+                worker.catchUp();
+            }
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Worker worker : workers) {
+            worker.thread.interrupt();
+        }
+        for (Worker worker : workers) {
+            worker.thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        deleteHandled();
+    }
+
+    private void markHandled(Envelope envelope) {
+        if (envelope.outboxId() > 0) {
+            handled.add(envelope.outboxId());
+        }
+    }
+
+    private final class Worker {
+
+        final DomainEventConsumer consumer;
+        final BlockingQueue<Envelope> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final Thread thread;
+        final Timer lag;
+        final Counter errors;
+        final Counter skipped;
+        final Counter dropped;
+        // Set when the queue stayed full: later events wait in the outbox until catchUp has fed
+        // back everything in skippedRows, so the consumer still sees them in order
+        volatile boolean behind;
+        // Outbox ids this consumer skipped, each with the envelope's count of consumers to go
+        final ConcurrentSkipListMap<Long, AtomicInteger> skippedRows = new ConcurrentSkipListMap<>();
+
+        Worker(DomainEventConsumer consumer) {
+            this.consumer = consumer;
+            String name = ClassUtils.getUserClass(consumer).getSimpleName();
+            lag = Timer.builder("events.consumer.lag")
+                    .description("Time from publication until the consumer has handled the event")
+                    .tag("consumer", name)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            errors = meterRegistry.counter("events.consumer.errors", "consumer", name);
+            skipped = meterRegistry.counter("events.consumer.skipped", "consumer", name);
+            dropped = meterRegistry.counter("events.consumer.dropped", "consumer", name);
+            Gauge.builder("events.consumer.queue", queue, BlockingQueue::size)
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+            thread = new Thread(this::drainLoop, "events-" + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void submit(Envelope envelope) {
+            if (!running) {
+                // Shutting down: the outbox row is kept and replayed on the next start
+                return;
+            }
+            if (!behind) {
+                try {
+                    if (queue.offer(envelope, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (this) {
+                // Rechecked under the lock catchUp clears it with, so no skipped row is missed
+                if (!behind && queue.offer(envelope)) {
+                    return;
+                }
+                behind = true;
+                skip(envelope);
+            }
+        }
+
+        // Never handled on the publishing thread, which would overtake the events still queued
+        private void skip(Envelope envelope) {
+            if (envelope.outboxId() > 0) {
+                skipped.increment();
+                skippedRows.put(envelope.outboxId(), envelope.remaining());
+            } else {
+                // Not durable, so nothing to replay it from
+                dropped.increment();
+                log.warn("{} is behind; dropped non-durable {}", thread.getName(), envelope.event());
+                if (envelope.remaining().decrementAndGet() == 0) {
+                    markHandled(envelope);
+                }
+            }
+        }
+
+        /**
+         * Queues the skipped rows in id order while there is room, and takes the consumer back
+         * to normal delivery once none are left. Stops at a full queue; the next run goes on.
+         */
+        void catchUp() {
+            while (running) {
+                if (skippedRows.isEmpty()) {
+                    synchronized (this) {
+                        if (skippedRows.isEmpty()) {
+                            behind = false;
+                            log.info("{} caught up with the events it skipped", thread.getName());
+                            return;
+                        }
+                    }
+                }
+                long first = skippedRows.firstKey();
+                List<EventOutbox.StoredEvent> page = outbox.findAfter(first - 1, replayBatchSize);
+                if (page.isEmpty() || page.get(0).id() != first) {
+                    // The row is gone, e.g. deleted by hand; nothing left to deliver
+                    log.warn("{} skipped outbox event {} which no longer exists", thread.getName(), first);
+                    skippedRows.remove(first);
+                    continue;
+                }
+                for (EventOutbox.StoredEvent stored : page) {
+                    AtomicInteger remaining = skippedRows.get(stored.id());
+                    if (remaining == null) {
+                        continue;
+                    }
+                    long publishedAtMillis = stored.createdAt().atZone(ZoneId.systemDefault()).toInstant()
+                            .toEpochMilli();
+                    if (!queue.offer(new Envelope(stored.id(), stored.event(), publishedAtMillis, remaining))) {
+                        return;
+                    }
+                    skippedRows.remove(stored.id());
+                }
+            }
+        }
+
+        private void drainLoop() {
+            while (running || !queue.isEmpty()) {
+                try {
+                    Envelope envelope = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (envelope != null) {
+                        handle(envelope);
+                    }
+                } catch (InterruptedException e) {
+                    // Shutdown: keep draining what is already queued
+                    running = false;
+                }
+            }
+        }
+
+        private void handle(Envelope envelope) {
+            try {
+                consumer.onEvent(envelope.event());
+            } catch (RuntimeException e) {
+                // Not retried: a failing handler would otherwise block the consumer's queue
+                errors.increment();
+                log.warn("{} failed on {}", thread.getName(), envelope.event(), e);
+            }
+            lag.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - envelope.publishedAtMillis())));
+            if (envelope.remaining().decrementAndGet() == 0) {
+                markHandled(envelope);
+            }
+        }
+    }
+}
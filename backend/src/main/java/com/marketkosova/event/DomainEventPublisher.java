@@ -0,0 +1,36 @@
+package com.marketkosova.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class DomainEventPublisher {
+
+    private final EventOutbox outbox;
+    private final DomainEventDispatcher dispatcher;
+
+    /**
+     * Durable events are written to the outbox in the current transaction. Consumers
+     * see the event only after that transaction commits, or right away when there is
+     * none; a rollback discards it.
+     */
+    public void publish(DomainEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        long outboxId = event.durable() ? outbox.append(event, now) : 0;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.dispatch(outboxId, event, now);
+                }
+            });
+        } else {
+            dispatcher.dispatch(outboxId, event, now);
+        }
+    }
+}
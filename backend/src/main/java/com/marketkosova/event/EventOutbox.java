@@ -0,0 +1,88 @@
+package com.marketkosova.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * The {@code domain_events} table. A row is inserted in the publishing
+ * transaction and deleted once every consumer has handled the event, so after
+ * a crash the remaining rows are exactly the events to redeliver.
+ */
+@Component
+@RequiredArgsConstructor
+public class EventOutbox {
+
+    private static final Map<String, Class<? extends DomainEvent>> TYPES = new HashMap<>();
+
+    static {
+        for (Class<?> type : DomainEvent.class.getPermittedSubclasses()) {
+            TYPES.put(type.getSimpleName(), type.asSubclass(DomainEvent.class));
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public record StoredEvent(long id, DomainEvent event, LocalDateTime createdAt) {
+    }
+
+    public long append(DomainEvent event, LocalDateTime createdAt) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + event.getClass().getSimpleName(), e);
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO domain_events (event_type, payload, created_at) VALUES (?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, event.getClass().getSimpleName());
+            ps.setString(2, payload);
+            ps.setTimestamp(3, Timestamp.valueOf(createdAt));
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    public List<StoredEvent> findAfter(long afterId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, event_type, payload, created_at FROM domain_events WHERE id > ? ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new StoredEvent(rs.getLong("id"),
+                        read(rs.getString("event_type"), rs.getString("payload")),
+                        rs.getTimestamp("created_at").toLocalDateTime()),
+                afterId, limit);
+    }
+
+    public void delete(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.update("DELETE FROM domain_events WHERE id IN (" + placeholders + ")", ids.toArray());
+    }
+
+    private DomainEvent read(String type, String payload) {
+        Class<? extends DomainEvent> eventType = TYPES.get(type);
+        if (eventType == null) {
+            throw new IllegalStateException("Unknown event type in outbox: " + type);
+        }
+        try {
+            return objectMapper.readValue(payload, eventType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read " + type + " event", e);
+        }
+    }
+}
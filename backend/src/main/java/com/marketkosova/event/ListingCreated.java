@@ -0,0 +1,6 @@
+package com.marketkosova.event;
+
+import com.marketkosova.dto.ListingResponse;
+
+public record ListingCreated(ListingResponse listing) implements DomainEvent {
+}
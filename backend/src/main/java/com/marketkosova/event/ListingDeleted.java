@@ -0,0 +1,4 @@
+package com.marketkosova.event;
+
+public record ListingDeleted(long listingId, String image) implements DomainEvent {
+}
@@ -0,0 +1,9 @@
+package com.marketkosova.event;
+
+import com.marketkosova.dto.ListingResponse;
+
+/**
+ * @param replacedImage the previous image file when the update uploaded a new one, otherwise {@code null}
+ */
+public record ListingUpdated(ListingResponse listing, String replacedImage) implements DomainEvent {
+}
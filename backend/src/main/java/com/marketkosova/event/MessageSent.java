@@ -0,0 +1,14 @@
+package com.marketkosova.event;
+
+/**
+ * Not written to the outbox: its only consumer is the trending score, which is
+ * rebuilt from the messages table anyway, and the send path stays at one commit.
+ */
+public record MessageSent(long messageId, long conversationId, long listingId, long senderId)
+        implements DomainEvent {
+
+    @Override
+    public boolean durable() {
+        return false;
+    }
+}
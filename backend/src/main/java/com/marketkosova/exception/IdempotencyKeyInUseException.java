@@ -0,0 +1,11 @@
+package com.marketkosova.exception;
+
+/**
+ * The request with this {@code Idempotency-Key} is still being processed.
+ */
+public class IdempotencyKeyInUseException extends RuntimeException {
+
+    public IdempotencyKeyInUseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.marketkosova.exception;
+
+/**
+ * An {@code Idempotency-Key} was reused for a request with a different payload.
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.marketkosova.exception;
+
+/**
+ * A conditional request ({@code If-Match}) whose precondition no longer holds.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,85 @@
+package com.marketkosova.geo;
+
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Offline gazetteer of Kosovo municipalities used to turn free-text listing
+ * locations into coordinates. Names are matched as whole words, ignoring case
+ * and diacritics, and the longest matching name wins so that
+ * "Mitrovica e Veriut" is not resolved as "Mitrovica".
+ */
+@Component
+public class Gazetteer {
+
+    private static final String RESOURCE = "/geo/kosovo-municipalities.csv";
+
+    private final List<Entry> entries;
+
+    public Gazetteer() {
+        try (InputStream in = Gazetteer.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Gazetteer resource not found: " + RESOURCE);
+            }
+            this.entries = parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load gazetteer", e);
+        }
+    }
+
+    public Optional<GeoPoint> geocode(String location) {
+        if (location == null || location.isBlank()) {
+            return Optional.empty();
+        }
+        String haystack = " " + normalize(location) + " ";
+        for (Entry entry : entries) {
+            if (haystack.contains(" " + entry.name() + " ")) {
+                return Optional.of(entry.point());
+            }
+        }
+        return Optional.empty();
+    }
+
+    static String normalize(String value) {
+        String stripped = Normalizer.normalize(value, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase()
+                .replace('đ', 'd');
+        return stripped.replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private static List<Entry> parse(InputStream in) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] columns = line.split(",", -1);
+            GeoPoint point = new GeoPoint(Double.parseDouble(columns[1]), Double.parseDouble(columns[2]));
+            entries.add(new Entry(normalize(columns[0]), point));
+            if (columns.length > 3 && !columns[3].isBlank()) {
+                for (String alias : columns[3].split("\\|")) {
+                    entries.add(new Entry(normalize(alias), point));
+                }
+            }
+        }
+        entries.sort(Comparator.comparingInt((Entry e) -> e.name().length()).reversed());
+        return List.copyOf(entries);
+    }
+
+    private record Entry(String name, GeoPoint point) {
+    }
+}
@@ -0,0 +1,217 @@
+package com.marketkosova.geo;
+
+import com.marketkosova.event.*;
+import com.marketkosova.repository.ListingCoordinates;
+import com.marketkosova.repository.ListingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory grid index over listing coordinates. The map is split into fixed
+ * cells of {@value #CELL_DEGREES} degrees (about 5 km), each holding its points
+ * in primitive arrays, so a radius query only scans the cells overlapping the
+ * search area instead of every listing; a box wider than the occupied cells walks those
+ * instead, so no query costs more than one pass over the index. Writes hold the index lock, so a listing is in at
+ * most one cell; searches only lock the cells they read.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ListingGeoIndex implements DomainEventConsumer {
+
+    private static final double CELL_DEGREES = 0.05;
+    private static final long LON_CELLS = (long) Math.ceil(360 / CELL_DEGREES) + 1;
+    private static final double KM_PER_DEGREE_LAT = 111.32;
+
+    private final ListingRepository listingRepository;
+
+    private final ConcurrentHashMap<Long, Cell> cells = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> cellByListing = new ConcurrentHashMap<>();
+
+    public record Hit(long listingId, double distanceKm) {
+    }
+
+    // Loads inside the lock: an event applied before it is covered by the query, one after it by the event
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        cells.clear();
+        cellByListing.clear();
+        List<ListingCoordinates> coordinates = listingRepository.findAllCoordinates();
+        for (ListingCoordinates c : coordinates) {
+            put(c.getId(), c.getLatitude(), c.getLongitude());
+        }
+        log.info("Geo index built with {} listings in {} cells", cellByListing.size(), cells.size());
+    }
+
+    @Override
+    public boolean supports(DomainEvent event) {
+        return event instanceof ListingCreated || event instanceof ListingUpdated || event instanceof ListingDeleted;
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        switch (event) {
+            case ListingCreated created -> put(created.listing().getId(),
+                    created.listing().getLatitude(), created.listing().getLongitude());
+            case ListingUpdated updated -> put(updated.listing().getId(),
+                    updated.listing().getLatitude(), updated.listing().getLongitude());
+            case ListingDeleted deleted -> remove(deleted.listingId());
+            default -> {
+            }
+        }
+    }
+
+    public synchronized void put(long listingId, Double latitude, Double longitude) {
+        remove(listingId);
+        if (!GeoPoint.isValid(latitude, longitude)) {
+            return;
+        }
+        long key = cellKey(latitude, longitude);
+        cells.computeIfAbsent(key, k -> new Cell()).add(listingId, latitude, longitude);
+        cellByListing.put(listingId, key);
+    }
+
+    public synchronized void remove(long listingId) {
+        Long key = cellByListing.remove(listingId);
+        if (key != null) {
+            Cell cell = cells.get(key);
+            if (cell != null) {
+                cell.remove(listingId);
+            }
+        }
+    }
+
+    public int size() {
+        return cellByListing.size();
+    }
+
+    /**
+     * Returns up to {@code limit} listings within {@code radiusKm} of the center, closest first.
+     */
+    public List<Hit> nearby(GeoPoint center, double radiusKm, int limit) {
+        double dLat = radiusKm / KM_PER_DEGREE_LAT;
+        double dLon = radiusKm / (KM_PER_DEGREE_LAT * Math.max(0.01, Math.cos(Math.toRadians(center.latitude()))));
+        return search(center, center.latitude() - dLat, center.longitude() - dLon,
+                center.latitude() + dLat, center.longitude() + dLon, radiusKm, limit);
+    }
+
+    /**
+     * Returns up to {@code limit} listings inside the bounding box, closest to {@code center} first.
+     */
+    public List<Hit> within(GeoPoint center, double minLat, double minLon, double maxLat, double maxLon, int limit) {
+        return search(center, minLat, minLon, maxLat, maxLon, Double.MAX_VALUE, limit);
+    }
+
+    private List<Hit> search(GeoPoint center, double minLat, double minLon, double maxLat, double maxLon,
+                             double radiusKm, int limit) {
+        // Max-heap on distance keeps only the closest `limit` hits
+        PriorityQueue<Hit> closest = new PriorityQueue<>(
+                Comparator.comparingDouble(Hit::distanceKm).reversed());
+
+        long fromLat = latIndex(Math.max(-90, minLat));
+        long toLat = latIndex(Math.min(90, maxLat));
+        long fromLon = lonIndex(Math.max(-180, minLon));
+        long toLon = lonIndex(Math.min(180, maxLon));
+
+        // A large box spans more cells than are occupied: walk the occupied ones instead of probing every
+        // cell, so a whole-world box costs one pass over the index rather than ~26M lookups
+        if ((toLat - fromLat + 1) * (toLon - fromLon + 1) > cells.size()) {
+            cells.forEach((key, cell) -> {
+                long latIdx = key / LON_CELLS;
+                long lonIdx = key % LON_CELLS;
+                if (latIdx >= fromLat && latIdx <= toLat && lonIdx >= fromLon && lonIdx <= toLon) {
+                    cell.collect(center, minLat, minLon, maxLat, maxLon, radiusKm, limit, closest);
+                }
+            });
+        } else {
+            for (long latIdx = fromLat; latIdx <= toLat; latIdx++) {
+                for (long lonIdx = fromLon; lonIdx <= toLon; lonIdx++) {
+                    Cell cell = cells.get(latIdx * LON_CELLS + lonIdx);
+                    if (cell != null) {
+                        cell.collect(center, minLat, minLon, maxLat, maxLon, radiusKm, limit, closest);
+                    }
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(closest);
+        hits.sort(Comparator.comparingDouble(Hit::distanceKm));
+        return hits;
+    }
+
+    private static long cellKey(double latitude, double longitude) {
+        return latIndex(latitude) * LON_CELLS + lonIndex(longitude);
+    }
+
+    private static long latIndex(double latitude) {
+        return (long) Math.floor((latitude + 90) / CELL_DEGREES);
+    }
+
+    private static long lonIndex(double longitude) {
+        return (long) Math.floor((longitude + 180) / CELL_DEGREES);
+    }
+
+    private static final class Cell {
+
+        private long[] ids = new long[8];
+        private double[] lats = new double[8];
+        private double[] lons = new double[8];
+        private int size;
+
+        synchronized void add(long id, double lat, double lon) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                lats = Arrays.copyOf(lats, capacity);
+                lons = Arrays.copyOf(lons, capacity);
+            }
+            ids[size] = id;
+            lats[size] = lat;
+            lons[size] = lon;
+            size++;
+        }
+
+        synchronized void remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    size--;
+                    ids[i] = ids[size];
+                    lats[i] = lats[size];
+                    lons[i] = lons[size];
+                    return;
+                }
+            }
+        }
+
+        synchronized void collect(GeoPoint center, double minLat, double minLon, double maxLat, double maxLon,
+                                  double radiusKm, int limit, PriorityQueue<Hit> closest) {
+            for (int i = 0; i < size; i++) {
+                double lat = lats[i];
+                double lon = lons[i];
+                if (lat < minLat || lat > maxLat || lon < minLon || lon > maxLon) {
+                    continue;
+                }
+                double distance = center.distanceKm(lat, lon);
+                if (distance > radiusKm) {
+                    continue;
+                }
+                if (closest.size() < limit) {
+                    closest.add(new Hit(ids[i], distance));
+                } else if (distance < closest.peek().distanceKm()) {
+                    closest.poll();
+                    closest.add(new Hit(ids[i], distance));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.marketkosova.jobs;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Deletes the rows of a table whose expiry column is in the past, {@code chunkSize} rows
+ * per chunk so no delete holds locks for long. The run's cutoff is its checkpoint.
+ */
+public class ExpiredRowPurgeJob implements MaintenanceJob {
+
+    private final String name;
+    private final String table;
+    private final String expiresColumn;
+    private final long intervalMillis;
+    private final boolean enabled;
+    private final int chunkSize;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExpiredRowPurgeJob(String name, String table, String expiresColumn, long intervalMillis, boolean enabled,
+                              int chunkSize, JdbcTemplate jdbcTemplate) {
+        this.name = name;
+        this.table = table;
+        this.expiresColumn = expiresColumn;
+        this.intervalMillis = intervalMillis;
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public long intervalMillis() {
+        return intervalMillis;
+    }
+
+    @Override
+    public boolean enabled() {
+        return enabled;
+    }
+
+    @Override
+    public String runChunk(JobContext context) {
+        Timestamp cutoff = context.checkpoint() != null ? Timestamp.valueOf(context.checkpoint())
+                : Timestamp.valueOf(LocalDateTime.now());
+        int deleted = jdbcTemplate.update("DELETE FROM " + table + " WHERE " + expiresColumn + " < ? LIMIT " + chunkSize,
+                cutoff);
+        return deleted == chunkSize ? cutoff.toString() : null;
+    }
+}
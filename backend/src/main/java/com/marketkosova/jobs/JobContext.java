@@ -0,0 +1,13 @@
+package com.marketkosova.jobs;
+
+/**
+ * What a {@link MaintenanceJob} chunk runs with: its slot out of {@code slots}, and the
+ * checkpoint the previous chunk returned, {@code null} at the start of a run.
+ */
+public record JobContext(int slot, int slots, String checkpoint) {
+
+    /** Whether {@code key} belongs to this slot, for jobs that split their work across slots. */
+    public boolean owns(String key) {
+        return Math.floorMod(key.hashCode(), slots) == slot;
+    }
+}
@@ -0,0 +1,209 @@
+package com.marketkosova.jobs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the {@link MaintenanceJob}s so that each job slot runs on one node at a time,
+ * however many nodes are up. Every node polls {@code job_leases}; the one whose
+ * conditional update takes a due slot's lease runs it on a small local pool, renewing the
+ * lease and storing the checkpoint after each chunk, and hands the slot back with its next
+ * due time when the run ends. A node that dies keeps its slots only until the lease expires.
+ *
+ * <p>Published as {@code jobs.run} (run time, tagged with the outcome), {@code jobs.lag}
+ * (how long after its due time a run started) and {@code jobs.chunks}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JobScheduler {
+
+    private static final String ACQUIRE_SQL = "UPDATE job_leases SET owner = ?, " +
+            "lease_until = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3)) " +
+            "WHERE job_name = ? AND slot = ? AND next_run_at <= CURRENT_TIMESTAMP(3) " +
+            "AND (owner IS NULL OR lease_until < CURRENT_TIMESTAMP(3))";
+    private static final String RENEW_SQL = "UPDATE job_leases SET checkpoint = ?, " +
+            "lease_until = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3)) " +
+            "WHERE job_name = ? AND slot = ? AND owner = ?";
+    private static final String RELEASE_SQL = "UPDATE job_leases SET owner = NULL, lease_until = NULL, checkpoint = ?, " +
+            "next_run_at = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3)) " +
+            "WHERE job_name = ? AND slot = ? AND owner = ?";
+
+    private final List<MaintenanceJob> jobs;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.jobs.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.jobs.lease-ms:60000}")
+    private long leaseMillis;
+
+    @Value("${app.jobs.threads:2}")
+    private int threads;
+
+    private final String nodeId = nodeId();
+    // Jobs running on this node; a node runs at most one slot of a job at a time
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private final Map<String, Counter> chunks = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+    private volatile boolean stopping;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        for (MaintenanceJob job : jobs) {
+            for (int slot = 0; slot < job.concurrency(); slot++) {
+                jdbcTemplate.update("INSERT IGNORE INTO job_leases (job_name, slot) VALUES (?, ?)", job.name(), slot);
+            }
+            chunks.put(job.name(), Counter.builder("jobs.chunks").tag("job", job.name()).register(meterRegistry));
+        }
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "maintenance-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Maintenance jobs on node {}: {}", nodeId, jobs.stream().map(MaintenanceJob::name).toList());
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.poll-interval:5000}")
+    public void poll() {
+        if (!enabled || stopping) {
+            return;
+        }
+        for (MaintenanceJob job : jobs) {
+            if (!job.enabled() || running.contains(job.name())) {
+                continue;
+            }
+            for (int slot = 0; slot < job.concurrency(); slot++) {
+                if (tryAcquire(job, slot)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private boolean tryAcquire(MaintenanceJob job, int slot) {
+        if (jdbcTemplate.update(ACQUIRE_SQL, nodeId, micros(leaseMillis), job.name(), slot) == 0) {
+            return false;
+        }
+        Map<String, Object> lease = jdbcTemplate.queryForMap(
+                "SELECT checkpoint, TIMESTAMPDIFF(MICROSECOND, next_run_at, CURRENT_TIMESTAMP(3)) AS lag " +
+                        "FROM job_leases WHERE job_name = ? AND slot = ?", job.name(), slot);
+        Timer.builder("jobs.lag")
+                .description("Time between a job slot becoming due and a node starting it")
+                .tag("job", job.name())
+                .register(meterRegistry)
+                .record(Math.max(0, ((Number) lease.get("lag")).longValue()), TimeUnit.MICROSECONDS);
+
+        running.add(job.name());
+        String checkpoint = (String) lease.get("checkpoint");
+        try {
+            executor.execute(() -> run(job, slot, checkpoint));
+        } catch (RejectedExecutionException e) {
+            running.remove(job.name());
+            jdbcTemplate.update(RELEASE_SQL, checkpoint, 0, job.name(), slot, nodeId);
+        }
+        return true;
+    }
+
+    private void run(MaintenanceJob job, int slot, String checkpoint) {
+        long start = System.nanoTime();
+        String outcome = "yielded";
+        long nextRunMillis = job.intervalMillis();
+        try {
+            if (checkpoint != null) {
+                log.info("Resuming job {} slot {} from checkpoint {}", job.name(), slot, checkpoint);
+            }
+            for (int chunk = 0; chunk < job.maxChunksPerRun(); chunk++) {
+                if (stopping) {
+                    // Due again at once, so another node picks it up from the checkpoint
+                    nextRunMillis = 0;
+                    break;
+                }
+                checkpoint = job.runChunk(new JobContext(slot, job.concurrency(), checkpoint));
+                chunks.get(job.name()).increment();
+                if (checkpoint == null) {
+                    outcome = "completed";
+                    break;
+                }
+                if (jdbcTemplate.update(RENEW_SQL, checkpoint, micros(leaseMillis), job.name(), slot, nodeId) == 0) {
+                    log.warn("Job {} slot {} lost its lease, stopping", job.name(), slot);
+                    outcome = "lease-lost";
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Job {} slot {} failed, retrying from its checkpoint in {} ms",
+                    job.name(), slot, nextRunMillis, e);
+            outcome = "failed";
+        } finally {
+            if (!outcome.equals("lease-lost")) {
+                release(job, slot, checkpoint, nextRunMillis);
+            }
+            running.remove(job.name());
+            Timer.builder("jobs.run")
+                    .description("Maintenance job run time")
+                    .tag("job", job.name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void release(MaintenanceJob job, int slot, String checkpoint, long nextRunMillis) {
+        try {
+            jdbcTemplate.update(RELEASE_SQL, checkpoint, micros(nextRunMillis), job.name(), slot, nodeId);
+        } catch (RuntimeException e) {
+            // The lease runs out by itself and the checkpoint stored after the last chunk still stands
+            log.warn("Could not release job {} slot {}: {}", job.name(), slot, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        stopping = true;
+        if (executor != null) {
+            executor.shutdown();
+            // Running chunks finish and release their slots; a longer one leaves its lease to expire
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static long micros(long millis) {
+        return TimeUnit.MILLISECONDS.toMicros(millis);
+    }
+
+    private static String nodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,43 @@
+package com.marketkosova.jobs;
+
+/**
+ * Cluster-wide background work run by {@link JobScheduler}: each slot of a job runs on one
+ * node at a time, in chunks. After every chunk the returned checkpoint is stored with the
+ * lease, so a run cut short by a restart or a lost lease resumes from it on whichever node
+ * takes the slot next. A chunk should finish well within {@code app.jobs.lease-ms} and be
+ * safe to repeat, since a node that loses its lease mid-chunk still completes that chunk.
+ */
+public interface MaintenanceJob {
+
+    /** Unique name; the lease row key and the {@code job} tag on metrics. */
+    String name();
+
+    /** Time from the end of a completed run to the start of the next one. */
+    long intervalMillis();
+
+    default boolean enabled() {
+        return true;
+    }
+
+    /**
+     * How many nodes may run the job at once. Each takes its own slot, with its own
+     * checkpoint, and should only touch its share of the work (see {@link JobContext}).
+     */
+    default int concurrency() {
+        return 1;
+    }
+
+    /**
+     * Chunks after which a run stops even with work left; the next run, one interval later,
+     * resumes from the checkpoint.
+     */
+    default int maxChunksPerRun() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Processes one chunk and returns the checkpoint to resume from, or {@code null} when
+     * the run is complete.
+     */
+    String runChunk(JobContext context);
+}
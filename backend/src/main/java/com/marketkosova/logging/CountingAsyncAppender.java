@@ -0,0 +1,32 @@
+package com.marketkosova.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback's {@link AsyncAppender} that counts the events it drops. With
+ * {@code neverBlock} a full queue drops the event instead of stalling the logging
+ * thread, and once the queue is past the discarding threshold INFO and lower are
+ * dropped to leave room for warnings; the stock appender does both silently.
+ * {@link LoggingMetrics} publishes the count.
+ */
+public class CountingAsyncAppender extends AsyncAppender {
+
+    private final LongAdder dropped = new LongAdder();
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        int remaining = getRemainingCapacity();
+        if ((remaining == 0 && isNeverBlock()) || (remaining < getDiscardingThreshold() && isDiscardable(event))) {
+            dropped.increment();
+            return;
+        }
+        super.append(event);
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
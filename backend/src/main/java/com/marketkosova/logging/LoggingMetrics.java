@@ -0,0 +1,53 @@
+package com.marketkosova.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+
+/**
+ * Publishes the drop counters and queue depth of the {@link CountingAsyncAppender}s on
+ * the root logger, and what the {@link SamplingTurboFilter}s skipped, as
+ * {@code logging.events.dropped}, {@code logging.queue} and {@code logging.events.sampled}.
+ * As a {@link MeterBinder} it is bound by the registry itself, so the meters exist even
+ * when nothing else pulls this bean in (e.g. with lazy initialization).
+ */
+@Component
+public class LoggingMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return;
+        }
+        Iterator<Appender<ILoggingEvent>> appenders = context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            if (appenders.next() instanceof CountingAsyncAppender appender) {
+                FunctionCounter.builder("logging.events.dropped", appender, CountingAsyncAppender::getDroppedCount)
+                        .description("Log events dropped because the async queue was full")
+                        .tag("appender", appender.getName())
+                        .register(meterRegistry);
+                Gauge.builder("logging.queue", appender, CountingAsyncAppender::getNumberOfElementsInQueue)
+                        .tag("appender", appender.getName())
+                        .register(meterRegistry);
+            }
+        }
+        for (TurboFilter filter : context.getTurboFilterList()) {
+            if (filter instanceof SamplingTurboFilter sampling) {
+                FunctionCounter.builder("logging.events.sampled", sampling, SamplingTurboFilter::getSkippedCount)
+                        .description("Log events skipped by sampling")
+                        .tag("logger", sampling.getLogger())
+                        .register(meterRegistry);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.marketkosova.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps one in {@code rate} INFO and lower events of the loggers under {@code logger},
+ * so DEBUG can be switched on for a hot path without flooding the output. Warnings and
+ * errors always pass. Turbo filters run before the event is built, so a skipped event
+ * costs no formatting.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final AtomicLong seen = new AtomicLong();
+    private final LongAdder skipped = new LongAdder();
+
+    private String logger;
+    private int rate = 1;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger target, Level level, String format, Object[] params,
+            Throwable t) {
+        if (!isStarted() || rate <= 1 || level == null || level.isGreaterOrEqual(Level.WARN)
+                || !level.isGreaterOrEqual(target.getEffectiveLevel()) || !matches(target.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        if (seen.getAndIncrement() % rate == 0) {
+            return FilterReply.NEUTRAL;
+        }
+        skipped.increment();
+        return FilterReply.DENY;
+    }
+
+    private boolean matches(String name) {
+        return name.startsWith(logger)
+                && (name.length() == logger.length() || name.charAt(logger.length()) == '.');
+    }
+
+    @Override
+    public void start() {
+        if (logger == null || logger.isBlank()) {
+            addError("No logger set for sampling filter " + getName());
+            return;
+        }
+        super.start();
+    }
+
+    public String getLogger() {
+        return logger;
+    }
+
+    public void setLogger(String logger) {
+        this.logger = logger;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+
+    public long getSkippedCount() {
+        return skipped.sum();
+    }
+}
@@ -0,0 +1,70 @@
+package com.marketkosova.overload;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that adapts to latency (additive increase, multiplicative decrease).
+ * Every request slower than the target, or failing, cuts the limit by {@link #BACKOFF};
+ * every request on time while the limit is at least half used raises it by one. The
+ * limit starts at the maximum, so only a slowdown lowers it, and it never drops below
+ * the minimum, so a group keeps serving a trickle that shows when latency recovers.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private double exactLimit;
+    private volatile int limit;
+
+    public AdaptiveConcurrencyLimit(int minLimit, int maxLimit, long latencyTargetMillis) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Expected 1 <= min-limit <= max-limit but got "
+                    + minLimit + " and " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(latencyTargetMillis);
+        this.exactLimit = maxLimit;
+        this.limit = maxLimit;
+    }
+
+    /** Takes a slot, or returns {@code false} at once when all are in use. */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Returns the slot taken by {@link #tryAcquire} and adapts the limit to how the request went. */
+    public void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (failed || latencyNanos > latencyTargetNanos) {
+                exactLimit = Math.max(minLimit, exactLimit * BACKOFF);
+            } else if (inFlightBefore * 2 >= limit) {
+                exactLimit = Math.min(maxLimit, exactLimit + 1);
+            }
+            limit = (int) exactLimit;
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
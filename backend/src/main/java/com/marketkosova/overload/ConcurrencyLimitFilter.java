@@ -0,0 +1,116 @@
+package com.marketkosova.overload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Bulkheads per {@link EndpointGroup}: each group has an {@link AdaptiveConcurrencyLimit},
+ * and a request over its group's limit gets a 503 with {@code Retry-After} straight away
+ * instead of holding a Tomcat thread while it waits on the database. Runs after the
+ * security chain, so rejected requests still carry CORS headers.
+ *
+ * <p>Limits come from {@code app.overload.<group>.max-limit} and
+ * {@code app.overload.<group>.latency-target-ms}. Published as
+ * {@code http.concurrency.limit}, {@code http.concurrency.in.flight} and
+ * {@code http.concurrency.rejected}, tagged with the group.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.overload.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.overload.min-limit:4}")
+    private int minLimit;
+
+    private final Map<EndpointGroup, AdaptiveConcurrencyLimit> limits = new EnumMap<>(EndpointGroup.class);
+    private final Map<EndpointGroup, Counter> rejected = new EnumMap<>(EndpointGroup.class);
+
+    @PostConstruct
+    void createLimits() {
+        for (EndpointGroup group : EndpointGroup.values()) {
+            String prefix = "app.overload." + group.key() + ".";
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(minLimit,
+                    environment.getRequiredProperty(prefix + "max-limit", Integer.class),
+                    environment.getRequiredProperty(prefix + "latency-target-ms", Long.class));
+            limits.put(group, limit);
+
+            Gauge.builder("http.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .description("Concurrent requests the endpoint group currently admits")
+                    .tag("group", group.key())
+                    .register(meterRegistry);
+            Gauge.builder("http.concurrency.in.flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .tag("group", group.key())
+                    .register(meterRegistry);
+            rejected.put(group, Counter.builder("http.concurrency.rejected")
+                    .description("Requests answered 503 because the endpoint group was at its limit")
+                    .tag("group", group.key())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        EndpointGroup group = EndpointGroup.of(request);
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        AdaptiveConcurrencyLimit limit = limits.get(group);
+        if (!limit.tryAcquire()) {
+            rejected.get(group).increment();
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            limit.release(System.nanoTime() - start, failed);
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of(
+                "timestamp", LocalDateTime.now().toString(),
+                "message", "The server is busy, try again shortly",
+                "status", HttpStatus.SERVICE_UNAVAILABLE.value()));
+    }
+}
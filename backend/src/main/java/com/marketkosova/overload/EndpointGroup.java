@@ -0,0 +1,52 @@
+package com.marketkosova.overload;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * The endpoint classes that get their own concurrency limit, so a slow database on one
+ * does not take the Tomcat threads the others need. Requests outside every group
+ * (categories, admin, actuator, uploaded files) are never limited.
+ */
+public enum EndpointGroup {
+
+    /** Listing reads and non-upload listing writes under {@code /api/listings}. */
+    BROWSE,
+    /** Text search, filters, geo queries and similar listings. */
+    SEARCH,
+    /** Everything under {@code /api/messages}. */
+    CHAT,
+    /** Login, registration and token refresh; password hashing makes these CPU heavy. */
+    AUTH,
+    /** Multipart listing creates and updates with images. */
+    UPLOADS;
+
+    /** Returns the group of the request, or {@code null} when it is not limited. */
+    public static EndpointGroup of(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/auth/")) {
+            return AUTH;
+        }
+        if (path.startsWith("/api/messages/")) {
+            return CHAT;
+        }
+        if (!path.equals("/api/listings") && !path.startsWith("/api/listings/")) {
+            return null;
+        }
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.startsWith("multipart/")) {
+            return UPLOADS;
+        }
+        if (path.equals("/api/listings/filter") || path.equals("/api/listings/nearby")
+                || path.equals("/api/listings/within") || path.endsWith("/similar")
+                || (path.equals("/api/listings") && "GET".equals(request.getMethod())
+                && request.getParameter("search") != null)) {
+            return SEARCH;
+        }
+        return BROWSE;
+    }
+
+    /** The group's name in properties and metric tags. */
+    public String key() {
+        return name().toLowerCase();
+    }
+}
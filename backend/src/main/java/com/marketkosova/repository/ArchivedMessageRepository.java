@@ -0,0 +1,25 @@
+package com.marketkosova.repository;
+
+import com.marketkosova.dto.MessageResponse;
+import com.marketkosova.entity.ArchivedMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedMessageRepository extends JpaRepository<ArchivedMessage, Long> {
+
+    @Query("SELECT new com.marketkosova.dto.MessageResponse(m.id, m.conversation.id, s.id, s.username, m.content, m.sentAt) " +
+            "FROM ArchivedMessage m JOIN m.sender s WHERE m.conversation.id = :conversationId AND m.id < :beforeId " +
+            "ORDER BY m.id DESC")
+    List<MessageResponse> findPageBefore(@Param("conversationId") Long conversationId,
+                                         @Param("beforeId") Long beforeId, Pageable pageable);
+
+    @Query("SELECT m FROM ArchivedMessage m WHERE m.conversation.id = :conversationId ORDER BY m.id DESC LIMIT 1")
+    Optional<ArchivedMessage> findLastMessageByConversationId(@Param("conversationId") Long conversationId);
+}
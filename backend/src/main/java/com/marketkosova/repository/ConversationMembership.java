@@ -0,0 +1,8 @@
+package com.marketkosova.repository;
+
+public record ConversationMembership(long buyerId, long sellerId, long listingId) {
+
+    public boolean isParticipant(long userId) {
+        return buyerId == userId || sellerId == userId;
+    }
+}
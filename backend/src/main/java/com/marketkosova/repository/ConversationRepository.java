@@ -2,18 +2,64 @@ package com.marketkosova.repository;
 
 import com.marketkosova.entity.Conversation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ConversationRepository extends JpaRepository<Conversation, Long> {
 
-    @Query("SELECT c FROM Conversation c WHERE c.buyer.id = :userId OR c.seller.id = :userId ORDER BY c.updatedAt DESC")
+    // Inbox queries are a UNION ALL of the buyer and seller index lookups: with an OR across the two
+    // columns MySQL and H2 both scan the whole table. The second branch skips rows the first one has
+    @Query(value = "SELECT c.* FROM conversations c WHERE c.buyer_id = :userId " +
+            "UNION ALL " +
+            "SELECT c.* FROM conversations c WHERE c.seller_id = :userId AND c.buyer_id <> :userId " +
+            "ORDER BY updated_at DESC",
+            nativeQuery = true)
     List<Conversation> findByUserIdOrderByUpdatedAtDesc(@Param("userId") Long userId);
 
-    Optional<Conversation> findByBuyerIdAndListingId(Long buyerId, Long listingId);
+    // Spelled out because the derived query outer-joins users and listings, which hides uk_buyer_listing
+    @Query("SELECT c FROM Conversation c WHERE c.buyer.id = :buyerId AND c.listing.id = :listingId")
+    Optional<Conversation> findByBuyerIdAndListingId(@Param("buyerId") Long buyerId, @Param("listingId") Long listingId);
+
+    @Query("SELECT new com.marketkosova.repository.ConversationMembership(c.buyer.id, c.seller.id, c.listing.id) " +
+            "FROM Conversation c WHERE c.id = :id")
+    Optional<ConversationMembership> findMembershipById(@Param("id") Long id);
+
+    @Query(value = "SELECT COALESCE(SUM(u.unread), 0) FROM (" +
+            "SELECT c.buyer_unread_count AS unread FROM conversations c WHERE c.buyer_id = :userId " +
+            "UNION ALL " +
+            "SELECT c.seller_unread_count FROM conversations c WHERE c.seller_id = :userId AND c.buyer_id <> :userId) u",
+            nativeQuery = true)
+    long sumUnreadCountByUserId(@Param("userId") Long userId);
+
+    // The unread counter is recomputed under the conversation row lock, which senders take
+    // before inserting, so a message is either counted here or by its sender's increment
+    @Modifying
+    @Query(value = "UPDATE conversations c SET " +
+            "c.buyer_unread_count = (SELECT COUNT(*) FROM messages m " +
+            "WHERE m.conversation_id = c.id AND m.id > :upTo AND m.sender_id <> c.buyer_id), " +
+            "c.buyer_last_read_message_id = :upTo, c.updated_at = c.updated_at " +
+            "WHERE c.id = :id AND (c.buyer_last_read_message_id IS NULL OR c.buyer_last_read_message_id < :upTo)",
+            nativeQuery = true)
+    int markReadByBuyer(@Param("id") Long id, @Param("upTo") Long upTo);
+
+    @Modifying
+    @Query(value = "UPDATE conversations c SET " +
+            "c.seller_unread_count = (SELECT COUNT(*) FROM messages m " +
+            "WHERE m.conversation_id = c.id AND m.id > :upTo AND m.sender_id <> c.seller_id), " +
+            "c.seller_last_read_message_id = :upTo, c.updated_at = c.updated_at " +
+            "WHERE c.id = :id AND (c.seller_last_read_message_id IS NULL OR c.seller_last_read_message_id < :upTo)",
+            nativeQuery = true)
+    int markReadBySeller(@Param("id") Long id, @Param("upTo") Long upTo);
+
+    @Query("SELECT new com.marketkosova.repository.ListingActivity(c.listing.id, cast(c.createdAt as LocalDate), count(c)) " +
+            "FROM Conversation c WHERE c.createdAt >= :since " +
+            "GROUP BY c.listing.id, cast(c.createdAt as LocalDate)")
+    List<ListingActivity> countPerListingAndDaySince(@Param("since") LocalDateTime since);
 }
@@ -0,0 +1,6 @@
+package com.marketkosova.repository;
+
+import java.time.LocalDate;
+
+public record ListingActivity(Long listingId, LocalDate day, Long total) {
+}
@@ -0,0 +1,10 @@
+package com.marketkosova.repository;
+
+public interface ListingCoordinates {
+
+    Long getId();
+
+    Double getLatitude();
+
+    Double getLongitude();
+}
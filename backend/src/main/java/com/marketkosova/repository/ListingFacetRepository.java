@@ -0,0 +1,20 @@
+package com.marketkosova.repository;
+
+import com.marketkosova.dto.CategoryFacetResponse;
+import com.marketkosova.entity.Listing;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface ListingFacetRepository {
+
+    List<CategoryFacetResponse> countByCategory(Specification<Listing> spec);
+
+    /**
+     * Counts listings per price bucket in a single aggregate query. Bucket {@code i}
+     * covers {@code [bounds[i-1], bounds[i])}; the first bucket is open below and
+     * the last one open above, so the result has {@code bounds.length + 1} entries.
+     */
+    long[] countByPriceBuckets(Specification<Listing> spec, List<BigDecimal> bounds);
+}
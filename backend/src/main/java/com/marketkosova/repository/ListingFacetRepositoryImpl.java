@@ -0,0 +1,89 @@
+package com.marketkosova.repository;
+
+import com.marketkosova.dto.CategoryFacetResponse;
+import com.marketkosova.entity.Category;
+import com.marketkosova.entity.Category_;
+import com.marketkosova.entity.Listing;
+import com.marketkosova.entity.Listing_;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ListingFacetRepositoryImpl implements ListingFacetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<CategoryFacetResponse> countByCategory(Specification<Listing> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Listing> root = query.from(Listing.class);
+        Join<Listing, Category> category = root.join(Listing_.category);
+
+        Expression<Long> count = cb.count(root);
+        query.multiselect(category.get(Category_.id), category.get(Category_.name), count)
+                .groupBy(category.get(Category_.id), category.get(Category_.name))
+                .orderBy(cb.desc(count));
+        applySpecification(spec, root, query, cb);
+
+        return entityManager.createQuery(query)
+                .getResultList()
+                .stream()
+                .map(row -> CategoryFacetResponse.builder()
+                        .categoryId(row.get(0, Long.class))
+                        .categoryName(row.get(1, String.class))
+                        .count(row.get(2, Long.class))
+                        .build())
+                .toList();
+    }
+
+    @Override
+    public long[] countByPriceBuckets(Specification<Listing> spec, List<BigDecimal> bounds) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Listing> root = query.from(Listing.class);
+        Path<BigDecimal> price = root.get(Listing_.price);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (int i = 0; i <= bounds.size(); i++) {
+            List<Predicate> conditions = new ArrayList<>();
+            if (i > 0) {
+                conditions.add(cb.greaterThanOrEqualTo(price, bounds.get(i - 1)));
+            }
+            if (i < bounds.size()) {
+                conditions.add(cb.lessThan(price, bounds.get(i)));
+            }
+            selections.add(cb.sum(cb.<Integer>selectCase()
+                    .when(cb.and(conditions.toArray(new Predicate[0])), 1)
+                    .otherwise(0)));
+        }
+        query.multiselect(selections);
+        applySpecification(spec, root, query, cb);
+
+        Tuple row = entityManager.createQuery(query).getSingleResult();
+        long[] counts = new long[bounds.size() + 1];
+        for (int i = 0; i < counts.length; i++) {
+            Number value = (Number) row.get(i);
+            counts[i] = value != null ? value.longValue() : 0;
+        }
+        return counts;
+    }
+
+    private void applySpecification(Specification<Listing> spec, Root<Listing> root,
+                                    CriteriaQuery<?> query, CriteriaBuilder cb) {
+        if (spec == null) {
+            return;
+        }
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+}
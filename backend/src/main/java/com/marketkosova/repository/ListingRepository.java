@@ -1,24 +1,51 @@
 package com.marketkosova.repository;
 
 import com.marketkosova.entity.Listing;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ListingRepository extends JpaRepository<Listing, Long> {
+public interface ListingRepository extends JpaRepository<Listing, Long>, JpaSpecificationExecutor<Listing>,
+        ListingFacetRepository {
 
-    List<Listing> findByUserIdOrderByCreatedAtDesc(Long userId);
+    // The derived query outer-joins users to filter on the foreign key and so never uses its index
+    @Query("SELECT l FROM Listing l WHERE l.user.id = :userId ORDER BY l.createdAt DESC")
+    List<Listing> findByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId);
 
-    List<Listing> findByCategoryIdOrderByCreatedAtDesc(Long categoryId);
+    // Left joins keep listings as the driving table, so the page is read off the created_at index
+    // instead of joining every listing to the small categories table first and sorting the result
+    @Query("SELECT l FROM Listing l LEFT JOIN FETCH l.user LEFT JOIN FETCH l.category ORDER BY l.createdAt DESC")
+    List<Listing> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
-    List<Listing> findAllByOrderByCreatedAtDesc();
+    // Inner join on the category, so the plan starts from that one row and reads its listings by index
+    @Query("SELECT l FROM Listing l JOIN FETCH l.category c LEFT JOIN FETCH l.user " +
+            "WHERE c.id = :categoryId ORDER BY l.createdAt DESC")
+    List<Listing> findByCategoryIdOrderByCreatedAtDesc(@Param("categoryId") Long categoryId, Pageable pageable);
 
-    @Query("SELECT l FROM Listing l WHERE " +
-            "LOWER(l.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-            "LOWER(l.description) LIKE LOWER(CONCAT('%', :query, '%'))")
-    List<Listing> searchListings(@Param("query") String query);
+    @Query("SELECT l.id AS id, l.latitude AS latitude, l.longitude AS longitude " +
+            "FROM Listing l WHERE l.latitude IS NOT NULL AND l.longitude IS NOT NULL")
+    List<ListingCoordinates> findAllCoordinates();
+
+    @EntityGraph(attributePaths = {"user", "category"})
+    List<Listing> findByIdIn(Collection<Long> ids);
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "category"})
+    Page<Listing> findAll(@Nullable Specification<Listing> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "category"})
+    List<Listing> findAll(@Nullable Specification<Listing> spec, Sort sort);
 }
@@ -0,0 +1,55 @@
+package com.marketkosova.repository;
+
+import com.marketkosova.entity.Category_;
+import com.marketkosova.entity.Listing;
+import com.marketkosova.entity.Listing_;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+public final class ListingSpecifications {
+
+    private ListingSpecifications() {
+    }
+
+    public static Specification<Listing> inCategories(Collection<Long> categoryIds) {
+        if (categoryIds == null || categoryIds.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> root.get(Listing_.category).get(Category_.id).in(categoryIds);
+    }
+
+    public static Specification<Listing> priceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (minPrice == null) {
+                return cb.lessThanOrEqualTo(root.get(Listing_.price), maxPrice);
+            }
+            if (maxPrice == null) {
+                return cb.greaterThanOrEqualTo(root.get(Listing_.price), minPrice);
+            }
+            return cb.between(root.get(Listing_.price), minPrice, maxPrice);
+        };
+    }
+
+    public static Specification<Listing> locationContains(String location) {
+        if (location == null || location.isBlank()) {
+            return null;
+        }
+        String pattern = "%" + location.trim().toLowerCase() + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get(Listing_.location)), pattern);
+    }
+
+    public static Specification<Listing> textContains(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        String pattern = "%" + text.trim().toLowerCase() + "%";
+        return (root, query, cb) -> cb.or(
+                cb.like(cb.lower(root.get(Listing_.title)), pattern),
+                cb.like(cb.lower(root.get(Listing_.description)), pattern));
+    }
+}
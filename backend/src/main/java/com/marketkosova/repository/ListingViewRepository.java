@@ -0,0 +1,142 @@
+package com.marketkosova.repository;
+
+import com.marketkosova.dto.ListingResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code listing_view} read model: one flat row per listing with the seller's
+ * username and the category name inlined. Browse queries read it with plain JDBC, so
+ * they skip entity hydration, lazy loading and the persistence context. Rows are
+ * written by {@code ListingService} in the same transaction as the listing.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ListingViewRepository {
+
+    private static final String COLUMNS = "id, title, description, price, location, image, created_at, "
+            + "user_id, username, category_id, category_name, latitude, longitude, version";
+
+    /**
+     * Copies listings with an id above the parameter into the read model. Used to
+     * backfill rows for listings inserted directly into {@code listings}.
+     */
+    public static final String COPY_FROM_LISTINGS_SQL = "INSERT INTO listing_view (" + COLUMNS + ") "
+            + "SELECT l.id, l.title, l.description, l.price, l.location, l.image, l.created_at, "
+            + "u.id, u.username, c.id, c.name, l.latitude, l.longitude, l.version "
+            + "FROM listings l JOIN users u ON u.id = l.user_id JOIN categories c ON c.id = l.category_id "
+            + "WHERE l.id > ?";
+
+    private static final RowMapper<ListingResponse> ROW_MAPPER = ListingViewRepository::mapRow;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<ListingResponse> findAllNewestFirst() {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM listing_view ORDER BY created_at DESC, id DESC",
+                ROW_MAPPER);
+    }
+
+    public List<ListingResponse> findByCategoryNewestFirst(long categoryId) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM listing_view WHERE category_id = ? "
+                + "ORDER BY created_at DESC, id DESC", ROW_MAPPER, categoryId);
+    }
+
+    public Optional<ListingResponse> findById(long id) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM listing_view WHERE id = ?", ROW_MAPPER, id)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * The row for {@code id} with the view count flushed to {@code listing_stats}, read in
+     * the same query; views not flushed yet are not included.
+     */
+    public Optional<ListingResponse> findByIdWithViewCount(long id) {
+        return jdbcTemplate.query("SELECT v." + COLUMNS.replace(", ", ", v.") + ", s.view_count FROM listing_view v "
+                        + "LEFT JOIN listing_stats s ON s.listing_id = v.id WHERE v.id = ?",
+                (rs, rowNum) -> {
+                    ListingResponse listing = mapRow(rs, rowNum);
+                    listing.setViewCount(rs.getLong("view_count"));
+                    return listing;
+                }, id)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Rows for {@code ids} in the order given; ids without a row are skipped.
+     */
+    public List<ListingResponse> findByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        Map<Long, ListingResponse> rows = jdbcTemplate.query("SELECT " + COLUMNS + " FROM listing_view "
+                        + "WHERE id IN (" + placeholders + ")", ROW_MAPPER, ids.toArray())
+                .stream()
+                .collect(Collectors.toMap(ListingResponse::getId, Function.identity()));
+        return ids.stream().map(rows::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Inserts or replaces the row for {@code listing}.
+     */
+    public void save(ListingResponse listing) {
+        int updated = jdbcTemplate.update("UPDATE listing_view SET title = ?, description = ?, price = ?, "
+                        + "location = ?, image = ?, created_at = ?, user_id = ?, username = ?, category_id = ?, "
+                        + "category_name = ?, latitude = ?, longitude = ?, version = ? WHERE id = ?",
+                listing.getTitle(), listing.getDescription(), listing.getPrice(), listing.getLocation(),
+                listing.getImage(), timestamp(listing), listing.getUserId(), listing.getUsername(),
+                listing.getCategoryId(), listing.getCategoryName(), listing.getLatitude(), listing.getLongitude(),
+                listing.getVersion(), listing.getId());
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO listing_view (" + COLUMNS + ") "
+                            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    listing.getId(), listing.getTitle(), listing.getDescription(), listing.getPrice(),
+                    listing.getLocation(), listing.getImage(), timestamp(listing), listing.getUserId(),
+                    listing.getUsername(), listing.getCategoryId(), listing.getCategoryName(),
+                    listing.getLatitude(), listing.getLongitude(), listing.getVersion());
+        }
+    }
+
+    public void deleteById(long id) {
+        jdbcTemplate.update("DELETE FROM listing_view WHERE id = ?", id);
+    }
+
+    private static Timestamp timestamp(ListingResponse listing) {
+        return listing.getCreatedAt() != null ? Timestamp.valueOf(listing.getCreatedAt()) : null;
+    }
+
+    private static ListingResponse mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return ListingResponse.builder()
+                .id(rs.getLong("id"))
+                .title(rs.getString("title"))
+                .description(rs.getString("description"))
+                .price(rs.getBigDecimal("price"))
+                .location(rs.getString("location"))
+                .image(rs.getString("image"))
+                .createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+                .userId(rs.getLong("user_id"))
+                .username(rs.getString("username"))
+                .categoryId(rs.getLong("category_id"))
+                .categoryName(rs.getString("category_name"))
+                .latitude(rs.getObject("latitude", Double.class))
+                .longitude(rs.getObject("longitude", Double.class))
+                .version(rs.getLong("version"))
+                .build();
+    }
+}
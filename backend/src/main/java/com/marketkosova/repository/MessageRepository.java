@@ -1,19 +1,35 @@
 package com.marketkosova.repository;
 
+import com.marketkosova.dto.MessageResponse;
 import com.marketkosova.entity.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
-    List<Message> findByConversationIdOrderBySentAtAsc(Long conversationId);
+    @Query("SELECT new com.marketkosova.dto.MessageResponse(m.id, m.conversation.id, s.id, s.username, m.content, m.sentAt) " +
+            "FROM Message m JOIN m.sender s WHERE m.conversation.id = :conversationId AND m.id < :beforeId " +
+            "ORDER BY m.id DESC")
+    List<MessageResponse> findPageBefore(@Param("conversationId") Long conversationId,
+                                         @Param("beforeId") Long beforeId, Pageable pageable);
 
     @Query("SELECT m FROM Message m WHERE m.conversation.id = :conversationId ORDER BY m.sentAt DESC LIMIT 1")
     Optional<Message> findLastMessageByConversationId(@Param("conversationId") Long conversationId);
+
+    @Query("SELECT MAX(m.id) FROM Message m WHERE m.conversation.id = :conversationId")
+    Long findLastMessageIdByConversationId(@Param("conversationId") Long conversationId);
+
+    // Left join so the window is read off idx_messages_sent_at rather than every conversation's messages
+    @Query("SELECT new com.marketkosova.repository.ListingActivity(c.listing.id, cast(m.sentAt as LocalDate), count(m)) " +
+            "FROM Message m LEFT JOIN m.conversation c WHERE m.sentAt >= :since " +
+            "GROUP BY c.listing.id, cast(m.sentAt as LocalDate)")
+    List<ListingActivity> countPerListingAndDaySince(@Param("since") LocalDateTime since);
 }
@@ -0,0 +1,15 @@
+package com.marketkosova.security;
+
+import java.security.Principal;
+
+/**
+ * Principal of a JWT-authenticated request. The id comes from the token's
+ * {@code uid} claim and is {@code null} for tokens issued before that claim existed.
+ */
+public record AuthenticatedUser(Long id, String username) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
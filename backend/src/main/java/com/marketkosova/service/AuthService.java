@@ -5,13 +5,19 @@ import com.marketkosova.entity.Role;
 import com.marketkosova.entity.User;
 import com.marketkosova.repository.UserRepository;
 import com.marketkosova.security.JwtUtil;
+import com.marketkosova.security.TokenRevocationList;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.*;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+
 @Service
 @RequiredArgsConstructor
 public class AuthService {
@@ -20,6 +26,8 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationList tokenRevocationList;
 
     public AuthResponse register(RegisterRequest request) {
         if (userRepository.existsByUsername(request.getUsername())) {
@@ -42,15 +50,7 @@ public class AuthService {
                 new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
 
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String token = jwtUtil.generateToken(userDetails);
-
-        return AuthResponse.builder()
-                .token(token)
-                .username(user.getUsername())
-                .email(user.getEmail())
-                .role(user.getRole().name())
-                .userId(user.getId())
-                .build();
+        return buildAuthResponse(user, userDetails);
     }
 
     public AuthResponse login(LoginRequest request) {
@@ -58,13 +58,41 @@ public class AuthService {
                 new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
 
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String token = jwtUtil.generateToken(userDetails);
 
         User user = userRepository.findByUsername(request.getUsername())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        return buildAuthResponse(user, userDetails);
+    }
+
+    public AuthResponse refresh(RefreshTokenRequest request) {
+        User user = refreshTokenService.rotate(request.getRefreshToken());
+
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+                user.getUsername(),
+                user.getPassword(),
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name())));
+
+        return buildAuthResponse(user, userDetails);
+    }
+
+    public void logout(RefreshTokenRequest request, String accessToken) {
+        refreshTokenService.revoke(request.getRefreshToken());
+
+        if (accessToken != null) {
+            try {
+                Claims claims = jwtUtil.extractAllClaims(accessToken);
+                tokenRevocationList.revoke(claims.getId(), claims.getExpiration());
+            } catch (JwtException e) {
+                // Expired or invalid tokens cannot be used anyway
+            }
+        }
+    }
+
+    private AuthResponse buildAuthResponse(User user, UserDetails userDetails) {
         return AuthResponse.builder()
-                .token(token)
+                .token(jwtUtil.generateToken(userDetails, user.getId()))
+                .refreshToken(refreshTokenService.issue(user))
                 .username(user.getUsername())
                 .email(user.getEmail())
                 .role(user.getRole().name())
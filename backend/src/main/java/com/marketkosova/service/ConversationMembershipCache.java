@@ -0,0 +1,79 @@
+package com.marketkosova.service;
+
+import com.marketkosova.event.DomainEvent;
+import com.marketkosova.event.DomainEventConsumer;
+import com.marketkosova.event.ListingDeleted;
+import com.marketkosova.repository.ConversationMembership;
+import com.marketkosova.repository.ConversationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches who takes part in a conversation so chat requests can be authorized
+ * without loading the conversation and its users. Participants never change
+ * after creation, so entries only go away when the conversation is deleted
+ * or the cache is full.
+ */
+@Service
+@RequiredArgsConstructor
+public class ConversationMembershipCache implements DomainEventConsumer {
+
+    private final ConversationRepository conversationRepository;
+
+    private final ConcurrentHashMap<Long, ConversationMembership> memberships = new ConcurrentHashMap<>();
+
+    @Value("${app.messages.membership-cache-size:100000}")
+    private int maxEntries;
+
+    public ConversationMembership get(long conversationId) {
+        ConversationMembership membership = memberships.get(conversationId);
+        if (membership != null) {
+            return membership;
+        }
+        membership = conversationRepository.findMembershipById(conversationId)
+                .orElseThrow(() -> new RuntimeException("Conversation not found"));
+        put(conversationId, membership);
+        return membership;
+    }
+
+    public void put(long conversationId, ConversationMembership membership) {
+        if (memberships.size() >= maxEntries) {
+            evict();
+        }
+        memberships.put(conversationId, membership);
+    }
+
+    @Override
+    public boolean supports(DomainEvent event) {
+        return event instanceof ListingDeleted;
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event instanceof ListingDeleted deleted) {
+            invalidateListing(deleted.listingId());
+        }
+    }
+
+    /**
+     * Drops the conversations about a listing; they are deleted with it through
+     * the foreign key cascade.
+     */
+    public void invalidateListing(long listingId) {
+        memberships.values().removeIf(membership -> membership.listingId() == listingId);
+    }
+
+    private void evict() {
+        // Drop roughly a tenth of the entries; the map has no access order, so this is arbitrary
+        int toRemove = Math.max(1, maxEntries / 10);
+        Iterator<Long> it = memberships.keySet().iterator();
+        while (it.hasNext() && toRemove-- > 0) {
+            it.next();
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.marketkosova.service;
+
+import com.marketkosova.dto.ListingResponse;
+import com.marketkosova.entity.Category;
+import com.marketkosova.event.*;
+import com.marketkosova.repository.CategoryRepository;
+import com.marketkosova.repository.ConversationRepository;
+import com.marketkosova.repository.ListingActivity;
+import com.marketkosova.repository.ListingRepository;
+import com.marketkosova.repository.MessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Precomputed homepage feeds: the latest listings globally and per category,
+ * plus a trending list ranked by recent conversation and message activity.
+ * <p>
+ * Each snapshot is an immutable set of arrays that readers get through a single
+ * volatile read, so feed requests never touch the database. Writers build a new
+ * snapshot and swap it in under a lock. Listing and chat events update it
+ * incrementally, and a periodic full rebuild corrects any drift. Rebuilds and trending
+ * refreshes query outside the lock and replay the listing events that arrived meanwhile
+ * on top of their result, so a change made during one is not lost.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeedSnapshotService implements DomainEventConsumer {
+
+    private static final ListingResponse[] EMPTY = new ListingResponse[0];
+    private static final double MESSAGE_WEIGHT = 1.0;
+    private static final double CONVERSATION_WEIGHT = 3.0;
+    private static final int TRENDING_WINDOW_DAYS = 7;
+
+    private static final Comparator<ListingResponse> NEWEST_FIRST = Comparator
+            .comparing(ListingResponse::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(ListingResponse::getId, Comparator.reverseOrder());
+
+    private static final Comparator<Scored> LOWEST_SCORE_FIRST = Comparator.comparingDouble(Scored::value)
+            .thenComparing(Scored::listingId, Comparator.reverseOrder());
+
+    private final ListingRepository listingRepository;
+    private final CategoryRepository categoryRepository;
+    private final MessageRepository messageRepository;
+    private final ConversationRepository conversationRepository;
+    private final ListingMapper listingMapper;
+
+    @Value("${app.feed.size:100}")
+    private int feedSize;
+
+    @Value("${app.feed.trending-size:20}")
+    private int trendingSize;
+
+    @Value("${app.feed.trending-half-life-hours:24}")
+    private double trendingHalfLifeHours;
+
+    private final Object writeLock = new Object();
+    // Held by a rebuild or trending refresh for its whole run, so at most one computes at a time
+    private final Object refreshLock = new Object();
+    // Activity is recorded under the read lock; a score rebuild swaps the map under the write lock
+    private final ReentrantReadWriteLock scoresLock = new ReentrantReadWriteLock();
+    private volatile ConcurrentHashMap<Long, ActivityScore> scores = new ConcurrentHashMap<>();
+    // Activity recorded while a score rebuild queries, merged into its result; null otherwise
+    private volatile ConcurrentHashMap<Long, ActivityScore> recentActivity;
+    private final AtomicBoolean trendingDirty = new AtomicBoolean();
+    private volatile FeedSnapshot snapshot;
+    // Listing events that arrive while a rebuild or trending refresh computes; guarded by writeLock
+    private List<DomainEvent> pending;
+
+    private record Scored(Long listingId, double value) {
+    }
+
+    private record FeedSnapshot(ListingResponse[] latest,
+                                Map<Long, ListingResponse[]> latestByCategory,
+                                ListingResponse[] trending) {
+    }
+
+    public List<ListingResponse> getLatest(Long categoryId) {
+        FeedSnapshot current = current();
+        ListingResponse[] items = categoryId == null
+                ? current.latest()
+                : current.latestByCategory().getOrDefault(categoryId, EMPTY);
+        return Collections.unmodifiableList(Arrays.asList(items));
+    }
+
+    public List<ListingResponse> getTrending() {
+        return Collections.unmodifiableList(Arrays.asList(current().trending()));
+    }
+
+    @Override
+    public boolean supports(DomainEvent event) {
+        return true;
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        switch (event) {
+            case ConversationStarted started -> recordConversationStarted(started.listingId());
+            case MessageSent sent -> recordMessageSent(sent.listingId());
+            default -> {
+                synchronized (writeLock) {
+                    // Before the first build there is nothing to update; that build reads the change
+                    if (snapshot != null) {
+                        apply(event);
+                    }
+                    if (pending != null) {
+                        pending.add(event);
+                    }
+                }
+            }
+        }
+    }
+
+    private void apply(DomainEvent event) {
+        switch (event) {
+            case ListingCreated created -> onListingSaved(created.listing());
+            case ListingUpdated updated -> onListingSaved(updated.listing());
+            case ListingDeleted deleted -> onListingDeleted(deleted.listingId());
+            default -> {
+            }
+        }
+    }
+
+    // Both run with writeLock held and a snapshot in place
+    private void onListingSaved(ListingResponse listing) {
+        FeedSnapshot current = snapshot;
+        Map<Long, ListingResponse[]> byCategory = new HashMap<>();
+        current.latestByCategory().forEach((categoryId, items) ->
+                byCategory.put(categoryId, without(items, listing.getId())));
+        byCategory.merge(listing.getCategoryId(), new ListingResponse[]{listing},
+                (items, ignored) -> upsert(items, listing));
+
+        ListingResponse[] trending = current.trending().clone();
+        for (int i = 0; i < trending.length; i++) {
+            if (trending[i].getId().equals(listing.getId())) {
+                trending[i] = listing;
+            }
+        }
+
+        snapshot = new FeedSnapshot(upsert(current.latest(), listing), Map.copyOf(byCategory), trending);
+    }
+
+    private void onListingDeleted(Long listingId) {
+        scores.remove(listingId);
+        FeedSnapshot current = snapshot;
+        Map<Long, ListingResponse[]> byCategory = new HashMap<>();
+        current.latestByCategory().forEach((categoryId, items) ->
+                byCategory.put(categoryId, without(items, listingId)));
+        snapshot = new FeedSnapshot(without(current.latest(), listingId), Map.copyOf(byCategory),
+                without(current.trending(), listingId));
+    }
+
+    public void recordConversationStarted(Long listingId) {
+        recordActivity(listingId, CONVERSATION_WEIGHT);
+    }
+
+    public void recordMessageSent(Long listingId) {
+        recordActivity(listingId, MESSAGE_WEIGHT);
+    }
+
+    private void recordActivity(Long listingId, double weight) {
+        long now = System.currentTimeMillis();
+        long halfLife = halfLifeMillis();
+        scoresLock.readLock().lock();
+        try {
+            scores.computeIfAbsent(listingId, id -> new ActivityScore()).add(weight, now, halfLife);
+            Map<Long, ActivityScore> recent = recentActivity;
+            if (recent != null) {
+                recent.computeIfAbsent(listingId, id -> new ActivityScore()).add(weight, now, halfLife);
+            }
+        } finally {
+            scoresLock.readLock().unlock();
+        }
+        trendingDirty.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${app.feed.trending-refresh-interval:10000}")
+    public void refreshTrending() {
+        synchronized (refreshLock) {
+            if (snapshot == null || !trendingDirty.getAndSet(false)) {
+                return;
+            }
+            startPending();
+            ListingResponse[] trending = computeTrending(snapshot);
+            synchronized (writeLock) {
+                FeedSnapshot current = snapshot;
+                install(new FeedSnapshot(current.latest(), current.latestByCategory(), trending));
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.feed.rebuild-interval:300000}",
+            fixedDelayString = "${app.feed.rebuild-interval:300000}")
+    public void rebuild() {
+        synchronized (refreshLock) {
+            startPending();
+            load();
+        }
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        PageRequest firstPage = PageRequest.of(0, feedSize);
+
+        ListingResponse[] latest = listingRepository.findAllByOrderByCreatedAtDesc(firstPage)
+                .stream()
+                .map(listingMapper::toResponse)
+                .toArray(ListingResponse[]::new);
+
+        Map<Long, ListingResponse[]> byCategory = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            byCategory.put(category.getId(), listingRepository
+                    .findByCategoryIdOrderByCreatedAtDesc(category.getId(), firstPage)
+                    .stream()
+                    .map(listingMapper::toResponse)
+                    .toArray(ListingResponse[]::new));
+        }
+
+        rebuildScores();
+
+        FeedSnapshot previous = snapshot;
+        FeedSnapshot rebuilt = new FeedSnapshot(latest, Map.copyOf(byCategory),
+                previous != null ? previous.trending() : EMPTY);
+        ListingResponse[] trending = computeTrending(rebuilt);
+
+        synchronized (writeLock) {
+            install(new FeedSnapshot(latest, rebuilt.latestByCategory(), trending));
+        }
+        log.debug("Feed snapshots rebuilt in {} ms", System.currentTimeMillis() - start);
+    }
+
+    private void startPending() {
+        synchronized (writeLock) {
+            pending = new ArrayList<>();
+        }
+    }
+
+    /** Swaps in a snapshot computed outside the lock, then replays what it missed. Holds writeLock. */
+    private void install(FeedSnapshot computed) {
+        snapshot = computed;
+        List<DomainEvent> missed = pending;
+        pending = null;
+        missed.forEach(this::apply);
+    }
+
+    private FeedSnapshot current() {
+        FeedSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (refreshLock) {
+                if (snapshot == null) {
+                    startPending();
+                    load();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Recomputes the scores from the last week of activity. Activity recorded while the queries
+     * run is merged into their result before it replaces the live scores, so none is lost; an
+     * event committed just before a query may be counted twice until the next rebuild.
+     */
+    private void rebuildScores() {
+        long now = System.currentTimeMillis();
+        long halfLife = halfLifeMillis();
+        LocalDateTime since = LocalDateTime.now().minusDays(TRENDING_WINDOW_DAYS);
+
+        scoresLock.writeLock().lock();
+        try {
+            recentActivity = new ConcurrentHashMap<>();
+        } finally {
+            scoresLock.writeLock().unlock();
+        }
+
+        ConcurrentHashMap<Long, ActivityScore> rebuilt = new ConcurrentHashMap<>();
+        try {
+            addActivity(rebuilt, messageRepository.countPerListingAndDaySince(since), MESSAGE_WEIGHT, now, halfLife);
+            addActivity(rebuilt, conversationRepository.countPerListingAndDaySince(since), CONVERSATION_WEIGHT,
+                    now, halfLife);
+        } catch (RuntimeException e) {
+            recentActivity = null;
+            throw e;
+        }
+
+        scoresLock.writeLock().lock();
+        try {
+            recentActivity.forEach((listingId, recent) ->
+                    rebuilt.computeIfAbsent(listingId, id -> new ActivityScore()).addAll(recent, halfLife));
+            scores = rebuilt;
+            recentActivity = null;
+        } finally {
+            scoresLock.writeLock().unlock();
+        }
+    }
+
+    private void addActivity(Map<Long, ActivityScore> target, List<ListingActivity> activity, double weight,
+                             long now, long halfLife) {
+        for (ListingActivity row : activity) {
+            // Day buckets are treated as if all activity happened at noon
+            long at = Math.min(now, row.day().atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            target.computeIfAbsent(row.listingId(), id -> new ActivityScore())
+                    .add(weight * row.total(), at, halfLife);
+        }
+    }
+
+    private ListingResponse[] computeTrending(FeedSnapshot base) {
+        long now = System.currentTimeMillis();
+        long halfLife = halfLifeMillis();
+        // Scores keep changing while this runs, so each is read once and the top ones kept in a
+        // min-heap of trendingSize, instead of sorting every listing by a moving value
+        PriorityQueue<Scored> top = new PriorityQueue<>(Math.max(1, trendingSize), LOWEST_SCORE_FIRST);
+        scores.forEach((listingId, score) -> {
+            Scored scored = new Scored(listingId, score.valueAt(now, halfLife));
+            if (top.size() < trendingSize) {
+                top.add(scored);
+            } else if (trendingSize > 0 && LOWEST_SCORE_FIRST.compare(scored, top.peek()) > 0) {
+                top.poll();
+                top.add(scored);
+            }
+        });
+        List<Long> topIds = top.stream()
+                .sorted(LOWEST_SCORE_FIRST.reversed())
+                .map(Scored::listingId)
+                .toList();
+
+        Map<Long, ListingResponse> known = new HashMap<>();
+        for (ListingResponse item : base.latest()) {
+            known.put(item.getId(), item);
+        }
+        for (ListingResponse item : base.trending()) {
+            known.putIfAbsent(item.getId(), item);
+        }
+        List<Long> missing = topIds.stream().filter(id -> !known.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            listingRepository.findByIdIn(missing)
+                    .forEach(listing -> known.put(listing.getId(), listingMapper.toResponse(listing)));
+        }
+
+        return topIds.stream()
+                .map(known::get)
+                .filter(Objects::nonNull)
+                .toArray(ListingResponse[]::new);
+    }
+
+    private ListingResponse[] upsert(ListingResponse[] items, ListingResponse listing) {
+        ListingResponse[] others = without(items, listing.getId());
+        int position = Arrays.binarySearch(others, listing, NEWEST_FIRST);
+        int insertAt = position >= 0 ? position : -position - 1;
+        if (insertAt >= feedSize) {
+            return others;
+        }
+        int length = Math.min(others.length + 1, feedSize);
+        ListingResponse[] result = new ListingResponse[length];
+        System.arraycopy(others, 0, result, 0, insertAt);
+        result[insertAt] = listing;
+        System.arraycopy(others, insertAt, result, insertAt + 1, length - insertAt - 1);
+        return result;
+    }
+
+    private static ListingResponse[] without(ListingResponse[] items, Long listingId) {
+        for (int i = 0; i < items.length; i++) {
+            if (items[i].getId().equals(listingId)) {
+                ListingResponse[] result = new ListingResponse[items.length - 1];
+                System.arraycopy(items, 0, result, 0, i);
+                System.arraycopy(items, i + 1, result, i, items.length - i - 1);
+                return result;
+            }
+        }
+        return items;
+    }
+
+    private long halfLifeMillis() {
+        return (long) (trendingHalfLifeHours * 3_600_000);
+    }
+
+    /**
+     * Exponentially decaying activity counter.
+     */
+    private static final class ActivityScore {
+
+        private double value;
+        private long updatedAt;
+
+        synchronized void add(double weight, long at, long halfLife) {
+            if (at >= updatedAt) {
+                value = valueAt(at, halfLife) + weight;
+                updatedAt = at;
+            } else {
+                value += weight * Math.pow(0.5, (double) (updatedAt - at) / halfLife);
+            }
+        }
+
+        synchronized double valueAt(long now, long halfLife) {
+            return value * Math.pow(0.5, (double) (now - updatedAt) / halfLife);
+        }
+
+        void addAll(ActivityScore other, long halfLife) {
+            double otherValue;
+            long otherUpdatedAt;
+            synchronized (other) {
+                otherValue = other.value;
+                otherUpdatedAt = other.updatedAt;
+            }
+            add(otherValue, otherUpdatedAt, halfLife);
+        }
+    }
+}
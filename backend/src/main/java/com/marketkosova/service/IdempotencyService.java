@@ -0,0 +1,336 @@
+package com.marketkosova.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketkosova.exception.IdempotencyKeyInUseException;
+import com.marketkosova.exception.IdempotencyKeyMismatchException;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Runs a create at most once per {@code Idempotency-Key} and replays its response
+ * to retries. Keys are scoped to the endpoint and the user, and bound to a
+ * fingerprint of the request so a key cannot be reused for a different payload.
+ * <p>
+ * Completed responses are kept in a bounded in-memory map for
+ * {@code app.idempotency.ttl-hours}; a duplicate arriving while the first request
+ * is still running waits for its result instead of executing again. With
+ * {@code app.idempotency.shared-store=true} keys are also claimed in the
+ * {@code idempotency_keys} table, so retries that land on another node are
+ * caught as well. The claiming node renews the key's lease while the request runs;
+ * another node takes the key over only once that lease has run out.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${app.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.idempotency.shared-store:true}")
+    private boolean sharedStore;
+
+    @Value("${app.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMillis;
+
+    @Value("${app.idempotency.lease-ms:15000}")
+    private long leaseMillis;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idempotency-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final class Entry {
+        final String fingerprint;
+        final CompletableFuture<String> response = new CompletableFuture<>();
+        // Set once the response is known; in-flight entries never expire
+        volatile long expiresAt = Long.MAX_VALUE;
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+
+    private record StoredKey(String requestHash, String status, String responseBody,
+                             LocalDateTime leaseUntil, LocalDateTime expiresAt) {
+    }
+
+    public record Result<T>(T body, boolean replayed) {
+
+        public ResponseEntity<T> toResponseEntity() {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (replayed) {
+                response.header(REPLAYED_HEADER, "true");
+            }
+            return response.body(body);
+        }
+    }
+
+    /**
+     * Runs {@code action}, or returns the response of the earlier request with the same
+     * key. Without a key the action simply runs. The action and the stored response
+     * commit in one transaction. A failed action releases the key, so the client can
+     * retry it; a failure after the action returned keeps the key until its lease runs
+     * out, since the action's writes may already be committed (group-committed messages).
+     */
+    public <T> Result<T> execute(String scope, String principal, String key, String fingerprint,
+                                 Class<T> type, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return new Result<>(action.get(), false);
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = sha256(scope + '\n' + principal + '\n' + key);
+
+        Entry entry = new Entry(fingerprint);
+        Entry existing;
+        while ((existing = entries.putIfAbsent(id, entry)) != null) {
+            if (!existing.isExpired(System.currentTimeMillis())) {
+                requireSameRequest(existing.fingerprint, fingerprint);
+                return new Result<>(read(await(existing), type), true);
+            }
+            entries.remove(id, existing);
+        }
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+
+        boolean claimed = false;
+        AtomicBoolean actionReturned = new AtomicBoolean();
+        ScheduledFuture<?> lease = null;
+        try {
+            if (sharedStore) {
+                String stored = claim(id, scope, fingerprint);
+                if (stored != null) {
+                    complete(entry, stored);
+                    return new Result<>(read(stored, type), true);
+                }
+                claimed = true;
+                long renewEvery = Math.max(1, leaseMillis / 3);
+                lease = leaseRenewer.scheduleAtFixedRate(() -> renewLease(id), renewEvery, renewEvery,
+                        TimeUnit.MILLISECONDS);
+            }
+            String[] json = new String[1];
+            T body = transactionTemplate.execute(status -> {
+                T result = action.get();
+                actionReturned.set(true);
+                json[0] = write(result);
+                if (sharedStore) {
+                    jdbcTemplate.update("UPDATE idempotency_keys SET status = 'COMPLETED', response_body = ?, "
+                            + "lease_until = NULL WHERE id = ?", json[0], id);
+                }
+                return result;
+            });
+            complete(entry, json[0]);
+            return new Result<>(body, false);
+        } catch (RuntimeException e) {
+            entries.remove(id, entry);
+            entry.response.completeExceptionally(e);
+            if (claimed && !actionReturned.get()) {
+                jdbcTemplate.update("DELETE FROM idempotency_keys WHERE id = ? AND status = 'IN_PROGRESS'", id);
+            }
+            throw e;
+        } finally {
+            if (lease != null) {
+                lease.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * SHA-256 over the parts of a request that must match for a replay.
+     */
+    public static String fingerprint(Object... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (Object part : parts) {
+            sb.append(Objects.toString(part, "")).append('\u0000');
+        }
+        return sha256(sb.toString());
+    }
+
+    /**
+     * Inserts the key as in progress. Returns the stored response if another node already
+     * completed it, or {@code null} when this node now owns the key.
+     */
+    private String claim(String id, String scope, String fingerprint) {
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                jdbcTemplate.update("INSERT INTO idempotency_keys "
+                                + "(id, scope, request_hash, status, created_at, expires_at, lease_until) "
+                                + "VALUES (?, ?, ?, 'IN_PROGRESS', ?, ?, ?)",
+                        id, scope, fingerprint, Timestamp.valueOf(now), Timestamp.valueOf(now.plusHours(ttlHours)),
+                        Timestamp.valueOf(leaseUntil(now)));
+                return null;
+            } catch (DuplicateKeyException e) {
+                List<StoredKey> rows = jdbcTemplate.query(
+                        "SELECT request_hash, status, response_body, lease_until, expires_at FROM idempotency_keys WHERE id = ?",
+                        (rs, rowNum) -> new StoredKey(rs.getString("request_hash"), rs.getString("status"),
+                                rs.getString("response_body"), toLocalDateTime(rs.getTimestamp("lease_until")),
+                                rs.getTimestamp("expires_at").toLocalDateTime()),
+                        id);
+                if (rows.isEmpty()) {
+                    continue;
+                }
+                StoredKey stored = rows.get(0);
+                if (stored.expiresAt().isBefore(now)) {
+                    jdbcTemplate.update("DELETE FROM idempotency_keys WHERE id = ? AND expires_at < ?",
+                            id, Timestamp.valueOf(now));
+                    continue;
+                }
+                requireSameRequest(stored.requestHash(), fingerprint);
+                if ("COMPLETED".equals(stored.status())) {
+                    return stored.responseBody();
+                }
+                // The owner stopped renewing its lease, so it died before finishing; take the key over
+                if (stored.leaseUntil() != null && stored.leaseUntil().isBefore(now)
+                        && jdbcTemplate.update("UPDATE idempotency_keys SET lease_until = ? WHERE id = ? "
+                                        + "AND status = 'IN_PROGRESS' AND lease_until = ?",
+                                Timestamp.valueOf(leaseUntil(now)), id, Timestamp.valueOf(stored.leaseUntil())) == 1) {
+                    log.warn("Took over abandoned idempotency key for {}", scope);
+                    return null;
+                }
+                throw new IdempotencyKeyInUseException("A request with this Idempotency-Key is still being processed");
+            }
+        }
+        throw new IdempotencyKeyInUseException("A request with this Idempotency-Key is still being processed");
+    }
+
+    private void renewLease(String id) {
+        try {
+            jdbcTemplate.update("UPDATE idempotency_keys SET lease_until = ? WHERE id = ? AND status = 'IN_PROGRESS'",
+                    Timestamp.valueOf(leaseUntil(LocalDateTime.now())), id);
+        } catch (RuntimeException e) {
+            // Tried again on the next tick; an exception would cancel the renewals
+            log.warn("Could not renew idempotency key lease: {}", e.getMessage());
+        }
+    }
+
+    private LocalDateTime leaseUntil(LocalDateTime now) {
+        return now.plus(leaseMillis, ChronoUnit.MILLIS);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    @PreDestroy
+    void stopLeaseRenewer() {
+        leaseRenewer.shutdownNow();
+    }
+
+    private void complete(Entry entry, String json) {
+        entry.expiresAt = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(ttlHours);
+        entry.response.complete(json);
+    }
+
+    private String await(Entry entry) {
+        try {
+            return entry.response.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the original request");
+        } catch (ExecutionException e) {
+            // The original request failed; its retry sees the same error
+            throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInUseException("A request with this Idempotency-Key is still being processed");
+        }
+    }
+
+    private static void requireSameRequest(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new IdempotencyKeyMismatchException("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        // Still full: drop roughly a tenth of the completed entries; the map has no access order
+        int toRemove = entries.size() - maxEntries + Math.max(1, maxEntries / 10);
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext() && toRemove > 0) {
+            if (it.next().response.isDone()) {
+                it.remove();
+                toRemove--;
+            }
+        }
+    }
+
+    // Expired rows of the shared store are deleted by the idempotency-key-purge job, see MaintenanceJobConfig
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval:600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private String write(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + body.getClass().getSimpleName(), e);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read stored " + type.getSimpleName(), e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
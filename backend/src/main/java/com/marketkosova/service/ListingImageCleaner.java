@@ -0,0 +1,34 @@
+package com.marketkosova.service;
+
+import com.marketkosova.event.DomainEvent;
+import com.marketkosova.event.DomainEventConsumer;
+import com.marketkosova.event.ListingDeleted;
+import com.marketkosova.event.ListingUpdated;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Deletes image files of deleted listings and images replaced by an update,
+ * only once the database change has committed.
+ */
+@Service
+@RequiredArgsConstructor
+public class ListingImageCleaner implements DomainEventConsumer {
+
+    private final FileStorageService fileStorageService;
+
+    @Override
+    public boolean supports(DomainEvent event) {
+        return event instanceof ListingDeleted
+                || event instanceof ListingUpdated updated && updated.replacedImage() != null;
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event instanceof ListingDeleted deleted) {
+            fileStorageService.deleteFile(deleted.image());
+        } else if (event instanceof ListingUpdated updated) {
+            fileStorageService.deleteFile(updated.replacedImage());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.marketkosova.service;
+
+import com.marketkosova.dto.ListingResponse;
+import com.marketkosova.dto.ListingSearchResponse;
+import com.marketkosova.dto.ListingView;
+import com.marketkosova.entity.Listing;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class ListingMapper {
+
+    // Enough for a two-line card teaser; the detail page fetches the full text
+    static final int SUMMARY_DESCRIPTION_LENGTH = 160;
+
+    public ListingResponse toResponse(Listing listing) {
+        return ListingResponse.builder()
+                .id(listing.getId())
+                .title(listing.getTitle())
+                .description(listing.getDescription())
+                .price(listing.getPrice())
+                .location(listing.getLocation())
+                .image(listing.getImage())
+                .createdAt(listing.getCreatedAt())
+                .userId(listing.getUser().getId())
+                .username(listing.getUser().getUsername())
+                .categoryId(listing.getCategory().getId())
+                .categoryName(listing.getCategory().getName())
+                .latitude(listing.getLatitude())
+                .longitude(listing.getLongitude())
+                .version(listing.getVersion())
+                .build();
+    }
+
+    public List<ListingResponse> toView(List<ListingResponse> listings, ListingView view) {
+        if (view == ListingView.FULL) {
+            return listings;
+        }
+        return listings.stream().map(this::toSummary).toList();
+    }
+
+    public ListingSearchResponse toView(ListingSearchResponse response, ListingView view) {
+        if (view == ListingView.FULL) {
+            return response;
+        }
+        response.setListings(toView(response.getListings(), view));
+        return response;
+    }
+
+    /**
+     * Copy of the response with the description cut to a teaser. Always copies, since feed
+     * snapshots hand out shared instances.
+     */
+    public ListingResponse toSummary(ListingResponse listing) {
+        return listing.toBuilder()
+                .description(truncate(listing.getDescription()))
+                .build();
+    }
+
+    static String truncate(String text) {
+        if (text == null || text.length() <= SUMMARY_DESCRIPTION_LENGTH) {
+            return text;
+        }
+        int end = SUMMARY_DESCRIPTION_LENGTH;
+        int space = text.lastIndexOf(' ', end);
+        if (space > SUMMARY_DESCRIPTION_LENGTH / 2) {
+            end = space;
+        } else if (Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end).stripTrailing() + "\u2026";
+    }
+}
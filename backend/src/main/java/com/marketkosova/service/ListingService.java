@@ -1,65 +1,218 @@
 package com.marketkosova.service;
 
-import com.marketkosova.dto.ListingRequest;
-import com.marketkosova.dto.ListingResponse;
+import com.marketkosova.catalog.ListingCatalog;
+import com.marketkosova.catalog.ListingSimilarityIndex;
+import com.marketkosova.dto.*;
 import com.marketkosova.entity.Category;
 import com.marketkosova.entity.Listing;
 import com.marketkosova.entity.User;
+import com.marketkosova.event.DomainEventPublisher;
+import com.marketkosova.event.ListingCreated;
+import com.marketkosova.event.ListingDeleted;
+import com.marketkosova.event.ListingUpdated;
+import com.marketkosova.exception.PreconditionFailedException;
+import com.marketkosova.geo.Gazetteer;
+import com.marketkosova.geo.GeoPoint;
+import com.marketkosova.geo.ListingGeoIndex;
 import com.marketkosova.repository.CategoryRepository;
 import com.marketkosova.repository.ListingRepository;
+import com.marketkosova.repository.ListingViewRepository;
 import com.marketkosova.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static com.marketkosova.repository.ListingSpecifications.*;
+
 @Service
 @RequiredArgsConstructor
 public class ListingService {
 
+    private static final List<BigDecimal> PRICE_BUCKET_BOUNDS = List.of(
+            new BigDecimal("50"), new BigDecimal("100"), new BigDecimal("500"),
+            new BigDecimal("1000"), new BigDecimal("5000"), new BigDecimal("20000"));
+
+    private static final double MAX_RADIUS_KM = 200;
+    private static final int MAX_GEO_RESULTS = 200;
+    private static final int MAX_SIMILAR_RESULTS = 24;
+
     private final ListingRepository listingRepository;
+    private final ListingViewRepository listingViewRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
     private final FileStorageService fileStorageService;
+    private final Gazetteer gazetteer;
+    private final ListingGeoIndex listingGeoIndex;
+    private final ListingMapper listingMapper;
+    private final FeedSnapshotService feedSnapshotService;
+    private final ListingViewCounter listingViewCounter;
+    private final DomainEventPublisher eventPublisher;
+    private final ListingCatalog listingCatalog;
+    private final ListingSimilarityIndex listingSimilarityIndex;
 
+    // Browse reads go to the listing_view read model; searches and filters still use the entities
     public List<ListingResponse> getAllListings() {
-        return listingRepository.findAllByOrderByCreatedAtDesc()
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return listingViewRepository.findAllNewestFirst();
+    }
+
+    public List<ListingResponse> getFeed(Long categoryId) {
+        return feedSnapshotService.getLatest(categoryId);
+    }
+
+    public List<ListingResponse> getTrending() {
+        return feedSnapshotService.getTrending();
     }
 
     public ListingResponse getListingById(Long id) {
-        Listing listing = listingRepository.findById(id)
+        // The flushed count comes with the row, so a view costs one query
+        ListingResponse response = listingViewRepository.findByIdWithViewCount(id)
                 .orElseThrow(() -> new RuntimeException("Listing not found"));
-        return mapToResponse(listing);
+        listingViewCounter.recordView(id);
+        response.setViewCount(response.getViewCount() + listingViewCounter.getPendingViews(id));
+        return response;
+    }
+
+    /**
+     * Listings most similar to the given one by text, category and price, best match first.
+     * Empty when the similarity index is disabled.
+     */
+    public List<ListingResponse> getSimilarListings(Long id, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_SIMILAR_RESULTS));
+        return listingSimilarityIndex.similar(id, size)
+                .map(listingViewRepository::findByIds)
+                .orElse(List.of());
     }
 
     public List<ListingResponse> getListingsByUser(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        return listingRepository.findByUserIdOrderByCreatedAtDesc(user.getId())
+        List<ListingResponse> listings = listingRepository.findByUserIdOrderByCreatedAtDesc(user.getId())
                 .stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
+
+        Map<Long, Long> viewCounts = listingViewCounter.getViewCounts(
+                listings.stream().map(ListingResponse::getId).toList());
+        listings.forEach(listing -> listing.setViewCount(viewCounts.getOrDefault(listing.getId(), 0L)));
+        return listings;
     }
 
     public List<ListingResponse> getListingsByCategory(Long categoryId) {
-        return listingRepository.findByCategoryIdOrderByCreatedAtDesc(categoryId)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return listingViewRepository.findByCategoryNewestFirst(categoryId);
     }
 
-    public List<ListingResponse> searchListings(String query) {
-        return listingRepository.searchListings(query)
+    public List<ListingResponse> searchListings(String query, Long categoryId) {
+        Specification<Listing> spec = Specification.where(textContains(query))
+                .and(inCategories(categoryId != null ? List.of(categoryId) : null));
+        return listingRepository.findAll(spec, ListingSort.NEWEST.toSort())
                 .stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
     }
 
+    public ListingSearchResponse filterListings(ListingFilterRequest filter) {
+        if (filter.getMinPrice() != null && filter.getMaxPrice() != null
+                && filter.getMinPrice().compareTo(filter.getMaxPrice()) > 0) {
+            throw new RuntimeException("Minimum price must not exceed maximum price");
+        }
+        ListingSort sort = ListingSort.from(filter.getSort());
+
+        // Without text filters the in-memory catalog has everything needed for the ids, total and facets
+        if (isBlank(filter.getSearch()) && isBlank(filter.getLocation())) {
+            Optional<ListingCatalog.Result> result = listingCatalog.filter(filter.getCategoryIds(),
+                    filter.getMinPrice(), filter.getMaxPrice(), PRICE_BUCKET_BOUNDS, sort,
+                    filter.getPage(), filter.getSize());
+            if (result.isPresent()) {
+                ListingCatalog.Result page = result.get();
+                return ListingSearchResponse.builder()
+                        .listings(listingViewRepository.findByIds(page.listingIds()))
+                        .page(filter.getPage())
+                        .size(filter.getSize())
+                        .totalElements(page.total())
+                        .totalPages((int) ((page.total() + filter.getSize() - 1) / filter.getSize()))
+                        .categoryFacets(page.categoryFacets())
+                        .priceBuckets(priceBuckets(page.priceBuckets()))
+                        .build();
+            }
+        }
+
+        Specification<Listing> categorySpec = inCategories(filter.getCategoryIds());
+        Specification<Listing> priceSpec = priceBetween(filter.getMinPrice(), filter.getMaxPrice());
+        Specification<Listing> baseSpec = Specification.where(textContains(filter.getSearch()))
+                .and(locationContains(filter.getLocation()));
+
+        Page<Listing> page = listingRepository.findAll(
+                baseSpec.and(categorySpec).and(priceSpec),
+                PageRequest.of(filter.getPage(), filter.getSize(), sort.toSort()));
+
+        // Each facet ignores its own filter so clients can show counts for the other choices
+        List<CategoryFacetResponse> categoryFacets = listingRepository.countByCategory(baseSpec.and(priceSpec));
+        long[] bucketCounts = listingRepository.countByPriceBuckets(baseSpec.and(categorySpec), PRICE_BUCKET_BOUNDS);
+
+        return ListingSearchResponse.builder()
+                .listings(page.getContent().stream().map(this::mapToResponse).collect(Collectors.toList()))
+                .page(page.getNumber())
+                .size(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .categoryFacets(categoryFacets)
+                .priceBuckets(priceBuckets(bucketCounts))
+                .build();
+    }
+
+    private static List<PriceBucketResponse> priceBuckets(long[] bucketCounts) {
+        List<PriceBucketResponse> priceBuckets = new ArrayList<>(bucketCounts.length);
+        for (int i = 0; i < bucketCounts.length; i++) {
+            priceBuckets.add(PriceBucketResponse.builder()
+                    .min(i > 0 ? PRICE_BUCKET_BOUNDS.get(i - 1) : null)
+                    .max(i < PRICE_BUCKET_BOUNDS.size() ? PRICE_BUCKET_BOUNDS.get(i) : null)
+                    .count(bucketCounts[i])
+                    .build());
+        }
+        return priceBuckets;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    public List<ListingResponse> findNearby(double latitude, double longitude, double radiusKm, int limit) {
+        if (!GeoPoint.isValid(latitude, longitude)) {
+            throw new RuntimeException("Invalid coordinates");
+        }
+        if (radiusKm <= 0 || radiusKm > MAX_RADIUS_KM) {
+            throw new RuntimeException("Radius must be between 0 and " + (int) MAX_RADIUS_KM + " km");
+        }
+        GeoPoint center = new GeoPoint(latitude, longitude);
+        return loadHits(listingGeoIndex.nearby(center, radiusKm, clampLimit(limit)));
+    }
+
+    public List<ListingResponse> findWithinBounds(double minLat, double minLng, double maxLat, double maxLng,
+                                                  Double latitude, Double longitude, int limit) {
+        if (!GeoPoint.isValid(minLat, minLng) || !GeoPoint.isValid(maxLat, maxLng)
+                || minLat > maxLat || minLng > maxLng) {
+            throw new RuntimeException("Invalid bounding box");
+        }
+        // Without an explicit reference point results are ordered by distance from the box center
+        GeoPoint center = GeoPoint.isValid(latitude, longitude)
+                ? new GeoPoint(latitude, longitude)
+                : new GeoPoint((minLat + maxLat) / 2, (minLng + maxLng) / 2);
+        return loadHits(listingGeoIndex.within(center, minLat, minLng, maxLat, maxLng, clampLimit(limit)));
+    }
+
+    @Transactional
     public ListingResponse createListing(ListingRequest request, MultipartFile image, String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -78,18 +231,24 @@ public class ListingService {
                 .user(user)
                 .category(category)
                 .build();
+        applyCoordinates(listing, request.getLatitude(), request.getLongitude());
 
         listing = listingRepository.save(listing);
-        return mapToResponse(listing);
+        ListingResponse response = mapToResponse(listing);
+        listingViewRepository.save(response);
+        eventPublisher.publish(new ListingCreated(response));
+        return response;
     }
 
-    public ListingResponse updateListing(Long id, ListingRequest request, MultipartFile image, String username) {
-        Listing listing = listingRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Listing not found"));
-
-        if (!listing.getUser().getUsername().equals(username)) {
-            throw new RuntimeException("You are not authorized to update this listing");
-        }
+    /**
+     * Replaces the listing's fields. With {@code expectedVersion} (from {@code If-Match})
+     * the update only applies to that version; a concurrent update committed in between
+     * surfaces as an optimistic locking failure instead of being overwritten.
+     */
+    @Transactional
+    public ListingResponse updateListing(Long id, ListingRequest request, MultipartFile image, String username,
+                                         Long expectedVersion) {
+        Listing listing = loadForUpdate(id, username, expectedVersion);
 
         Category category = categoryRepository.findById(request.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Category not found"));
@@ -99,19 +258,81 @@ public class ListingService {
         listing.setPrice(request.getPrice());
         listing.setLocation(request.getLocation());
         listing.setCategory(category);
+        applyCoordinates(listing, request.getLatitude(), request.getLongitude());
 
+        String replacedImage = null;
         if (image != null && !image.isEmpty()) {
-            // Delete old image
-            fileStorageService.deleteFile(listing.getImage());
-            // Store new image
+            // The old image is deleted by ListingImageCleaner once the update has committed
+            replacedImage = listing.getImage();
             String imageFilename = fileStorageService.storeFile(image);
             listing.setImage(imageFilename);
         }
 
-        listing = listingRepository.save(listing);
-        return mapToResponse(listing);
+        return saveUpdate(listing, replacedImage);
+    }
+
+    /**
+     * Applies only the fields present in the request. Together with {@code @DynamicUpdate}
+     * the UPDATE statement sets just the columns that actually changed.
+     */
+    @Transactional
+    public ListingResponse patchListing(Long id, ListingPatchRequest request, String username, Long expectedVersion) {
+        Listing listing = loadForUpdate(id, username, expectedVersion);
+
+        if (request.getTitle() != null) {
+            listing.setTitle(request.getTitle());
+        }
+        if (request.getDescription() != null) {
+            listing.setDescription(request.getDescription());
+        }
+        if (request.getPrice() != null) {
+            listing.setPrice(request.getPrice());
+        }
+        if (request.getCategoryId() != null && !request.getCategoryId().equals(listing.getCategory().getId())) {
+            listing.setCategory(categoryRepository.findById(request.getCategoryId())
+                    .orElseThrow(() -> new RuntimeException("Category not found")));
+        }
+        requireCoordinatePair(request.getLatitude(), request.getLongitude());
+        boolean locationChanged = request.getLocation() != null
+                && !request.getLocation().equals(listing.getLocation());
+        if (request.getLocation() != null) {
+            listing.setLocation(request.getLocation());
+        }
+        // Sent coordinates are stored as given; a new location without them is geocoded again
+        if (request.getLatitude() != null) {
+            listing.setLatitude(request.getLatitude());
+            listing.setLongitude(request.getLongitude());
+        } else if (locationChanged) {
+            applyCoordinates(listing, null, null);
+        }
+
+        return saveUpdate(listing, null);
+    }
+
+    private Listing loadForUpdate(Long id, String username, Long expectedVersion) {
+        Listing listing = listingRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Listing not found"));
+
+        if (!listing.getUser().getUsername().equals(username)) {
+            throw new RuntimeException("You are not authorized to update this listing");
+        }
+        if (expectedVersion != null && !expectedVersion.equals(listing.getVersion())) {
+            throw new PreconditionFailedException("Listing has been modified since version " + expectedVersion);
+        }
+        return listing;
     }
 
+    private ListingResponse saveUpdate(Listing listing, String replacedImage) {
+        // The entity is managed, so no save()/merge is needed; flushing runs the versioned
+        // UPDATE now and gives the response the new version
+        listingRepository.flush();
+        ListingResponse response = mapToResponse(listing);
+        listingViewRepository.save(response);
+        eventPublisher.publish(new ListingUpdated(response, replacedImage));
+        return response;
+    }
+
+    @Transactional
     public void deleteListing(Long id, String username, boolean isAdmin) {
         Listing listing = listingRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Listing not found"));
@@ -120,23 +341,51 @@ public class ListingService {
             throw new RuntimeException("You are not authorized to delete this listing");
         }
 
-        fileStorageService.deleteFile(listing.getImage());
         listingRepository.delete(listing);
+        listingViewRepository.deleteById(id);
+        eventPublisher.publish(new ListingDeleted(id, listing.getImage()));
+    }
+
+    private void applyCoordinates(Listing listing, Double latitude, Double longitude) {
+        requireCoordinatePair(latitude, longitude);
+        // Explicit coordinates win; otherwise fall back to the municipality named in the location
+        Optional<GeoPoint> point = GeoPoint.isValid(latitude, longitude)
+                ? Optional.of(new GeoPoint(latitude, longitude))
+                : gazetteer.geocode(listing.getLocation());
+        listing.setLatitude(point.map(GeoPoint::latitude).orElse(null));
+        listing.setLongitude(point.map(GeoPoint::longitude).orElse(null));
+    }
+
+    /**
+     * Rejects half a coordinate pair, which would otherwise be replaced by the geocoded location.
+     */
+    private static void requireCoordinatePair(Double latitude, Double longitude) {
+        if ((latitude == null) != (longitude == null)) {
+            throw new RuntimeException("Latitude and longitude must be given together");
+        }
+    }
+
+    private List<ListingResponse> loadHits(List<ListingGeoIndex.Hit> hits) {
+        Map<Long, Listing> listings = listingRepository.findByIdIn(
+                        hits.stream().map(ListingGeoIndex.Hit::listingId).toList())
+                .stream()
+                .collect(Collectors.toMap(Listing::getId, Function.identity()));
+
+        return hits.stream()
+                .filter(hit -> listings.containsKey(hit.listingId()))
+                .map(hit -> {
+                    ListingResponse response = mapToResponse(listings.get(hit.listingId()));
+                    response.setDistanceKm(Math.round(hit.distanceKm() * 100) / 100.0);
+                    return response;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_GEO_RESULTS));
     }
 
     private ListingResponse mapToResponse(Listing listing) {
-        return ListingResponse.builder()
-                .id(listing.getId())
-                .title(listing.getTitle())
-                .description(listing.getDescription())
-                .price(listing.getPrice())
-                .location(listing.getLocation())
-                .image(listing.getImage())
-                .createdAt(listing.getCreatedAt())
-                .userId(listing.getUser().getId())
-                .username(listing.getUser().getUsername())
-                .categoryId(listing.getCategory().getId())
-                .categoryName(listing.getCategory().getName())
-                .build();
+        return listingMapper.toResponse(listing);
     }
 }
@@ -0,0 +1,128 @@
+package com.marketkosova.service;
+
+import com.marketkosova.entity.ListingStats;
+import com.marketkosova.repository.ListingStatsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts listing views in memory and periodically flushes the aggregated deltas
+ * to {@code listing_stats}. Recording a view is a {@link LongAdder} increment in
+ * memory, so the read path never writes to the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ListingViewCounter {
+
+    private static final int FLUSH_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ListingStatsRepository listingStatsRepository;
+
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    private static final class Counter {
+        final LongAdder views = new LongAdder();
+        // Only written by the flushing thread
+        volatile long flushed;
+
+        long pending() {
+            return views.sum() - flushed;
+        }
+    }
+
+    public void recordView(long listingId) {
+        // Incremented inside compute, so flush cannot drop the counter between lookup and increment
+        counters.compute(listingId, (id, counter) -> {
+            Counter target = counter != null ? counter : new Counter();
+            target.views.increment();
+            return target;
+        });
+    }
+
+    public Map<Long, Long> getViewCounts(Collection<Long> listingIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Long id : listingIds) {
+            counts.put(id, getPendingViews(id));
+        }
+        for (ListingStats stats : listingStatsRepository.findAllById(listingIds)) {
+            counts.merge(stats.getListingId(), stats.getViewCount(), Long::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Views recorded on this node and not flushed yet, to add to a count read from {@code listing_stats}.
+     */
+    public long getPendingViews(long listingId) {
+        Counter counter = counters.get(listingId);
+        return counter != null ? Math.max(0, counter.pending()) : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.flush-interval:30000}")
+    @PreDestroy
+    public synchronized void flush() {
+        List<Object[]> deltas = new ArrayList<>();
+        List<Counter> flushedCounters = new ArrayList<>();
+
+        Iterator<Map.Entry<Long, Counter>> it = counters.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Counter> entry = it.next();
+            Counter counter = entry.getValue();
+            long total = counter.views.sum();
+            long delta = total - counter.flushed;
+            if (delta > 0) {
+                deltas.add(new Object[]{entry.getKey(), delta});
+                flushedCounters.add(counter);
+                counter.flushed = total;
+            } else {
+                // Idle since the last flush; checked again under the same lock recordView increments in
+                counters.computeIfPresent(entry.getKey(), (id, current) -> current.pending() > 0 ? current : null);
+            }
+        }
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < deltas.size(); from += FLUSH_CHUNK_SIZE) {
+            int to = Math.min(from + FLUSH_CHUNK_SIZE, deltas.size());
+            try {
+                upsert(deltas.subList(from, to));
+            } catch (RuntimeException e) {
+                // Give the unwritten deltas back so they are retried on the next flush
+                for (int i = from; i < deltas.size(); i++) {
+                    flushedCounters.get(i).flushed -= (long) deltas.get(i)[1];
+                }
+                log.warn("Could not flush listing view counts: {}", e.getMessage());
+                return;
+            }
+        }
+        log.debug("Flushed view counts for {} listings", deltas.size());
+    }
+
+    private void upsert(List<Object[]> chunk) {
+        // One statement per chunk; joining on listings skips listings deleted since they were viewed
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO listing_stats (listing_id, view_count, updated_at) " +
+                        "SELECT l.id, d.delta, CURRENT_TIMESTAMP(6) FROM listings l JOIN (");
+        Object[] args = new Object[chunk.size() * 2];
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "SELECT ? AS id, ? AS delta" : " UNION ALL SELECT ?, ?");
+            args[i * 2] = chunk.get(i)[0];
+            args[i * 2 + 1] = chunk.get(i)[1];
+        }
+        sql.append(") d ON d.id = l.id " +
+                "ON DUPLICATE KEY UPDATE view_count = view_count + VALUES(view_count), " +
+                "updated_at = VALUES(updated_at)");
+        jdbcTemplate.update(sql.toString(), args);
+    }
+}
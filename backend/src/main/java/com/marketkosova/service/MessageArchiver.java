@@ -0,0 +1,94 @@
+package com.marketkosova.service;
+
+import com.marketkosova.jobs.JobContext;
+import com.marketkosova.jobs.MaintenanceJob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Moves messages older than {@code app.messages.archive.after-days} from
+ * {@code messages} into the compressed {@code messages_archive} table. Each batch
+ * is copied and deleted in its own short transaction so the live table is never
+ * locked for long; a run stops after {@code max-batches-per-run} batches and the
+ * next run picks up where it left off. The cutoff is the run's checkpoint, so a
+ * resumed run archives up to the same point.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MessageArchiver implements MaintenanceJob {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.messages.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.messages.archive.after-days:180}")
+    private int afterDays;
+
+    @Value("${app.messages.archive.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.messages.archive.max-batches-per-run:100}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.messages.archive.interval:600000}")
+    private long interval;
+
+    @Override
+    public String name() {
+        return "message-archive";
+    }
+
+    @Override
+    public long intervalMillis() {
+        return interval;
+    }
+
+    @Override
+    public boolean enabled() {
+        return enabled;
+    }
+
+    @Override
+    public int maxChunksPerRun() {
+        return maxBatchesPerRun;
+    }
+
+    @Override
+    public String runChunk(JobContext context) {
+        Timestamp cutoff = context.checkpoint() != null ? Timestamp.valueOf(context.checkpoint())
+                : Timestamp.valueOf(LocalDateTime.now().minusDays(afterDays));
+        Integer count = transactionTemplate.execute(status -> archiveBatch(cutoff));
+        if (count == null || count == 0) {
+            return null;
+        }
+        log.debug("Archived {} messages sent before {}", count, cutoff);
+        return cutoff.toString();
+    }
+
+    private int archiveBatch(Timestamp cutoff) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM messages WHERE sent_at < ? ORDER BY sent_at LIMIT ? FOR UPDATE",
+                Long.class, cutoff, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Object[] args = ids.toArray();
+        // IGNORE keeps a retried batch from failing on rows a previous attempt already copied
+        jdbcTemplate.update("INSERT IGNORE INTO messages_archive (id, conversation_id, sender_id, content, sent_at) " +
+                "SELECT id, conversation_id, sender_id, content, sent_at FROM messages WHERE id IN (" + in + ")", args);
+        return jdbcTemplate.update("DELETE FROM messages WHERE id IN (" + in + ")", args);
+    }
+}
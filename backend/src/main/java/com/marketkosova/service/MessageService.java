@@ -2,21 +2,35 @@ package com.marketkosova.service;
 
 import com.marketkosova.dto.ConversationResponse;
 import com.marketkosova.dto.MessageResponse;
+import com.marketkosova.dto.UnreadCountResponse;
 import com.marketkosova.entity.Conversation;
 import com.marketkosova.entity.Listing;
-import com.marketkosova.entity.Message;
 import com.marketkosova.entity.User;
+import com.marketkosova.event.ConversationStarted;
+import com.marketkosova.event.DomainEventPublisher;
+import com.marketkosova.event.MessageSent;
+import com.marketkosova.repository.ArchivedMessageRepository;
+import com.marketkosova.repository.ConversationMembership;
 import com.marketkosova.repository.ConversationRepository;
 import com.marketkosova.repository.ListingRepository;
 import com.marketkosova.repository.MessageRepository;
 import com.marketkosova.repository.UserRepository;
+import com.marketkosova.security.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,10 +38,20 @@ import java.util.stream.Collectors;
 @Slf4j
 public class MessageService {
 
+        private static final int MAX_PAGE_SIZE = 200;
+
         private final ConversationRepository conversationRepository;
         private final MessageRepository messageRepository;
+        private final ArchivedMessageRepository archivedMessageRepository;
         private final UserRepository userRepository;
         private final ListingRepository listingRepository;
+        private final DomainEventPublisher eventPublisher;
+        private final ConversationMembershipCache membershipCache;
+        private final MessageWriter messageWriter;
+        private final TransactionTemplate transactionTemplate;
+
+        private final ConcurrentHashMap<String, CompletableFuture<ConversationResponse>> pendingConversations =
+                        new ConcurrentHashMap<>();
 
         public List<ConversationResponse> getConversations(String username) {
                 User user = userRepository.findByUsername(username)
@@ -35,12 +59,45 @@ public class MessageService {
 
                 return conversationRepository.findByUserIdOrderByUpdatedAtDesc(user.getId())
                                 .stream()
-                                .map(conv -> mapToConversationResponse(conv, user))
+                                .map(conv -> mapToConversationResponse(conv, user.getId()))
                                 .collect(Collectors.toList());
         }
 
-        @Transactional
+        /**
+         * Returns the buyer's conversation about a listing, creating it on first contact.
+         * Concurrent calls for the same buyer and listing share one lookup, so a burst of
+         * "Message seller" clicks inserts at most one row. A request from another node that
+         * loses the race on {@code uk_buyer_listing} is rolled back and reads the winner's row.
+         */
         public ConversationResponse getOrCreateConversation(Long listingId, String username) {
+                String key = username + ':' + listingId;
+                CompletableFuture<ConversationResponse> pending = new CompletableFuture<>();
+                CompletableFuture<ConversationResponse> inFlight = pendingConversations.putIfAbsent(key, pending);
+                if (inFlight != null) {
+                        return awaitConversation(inFlight);
+                }
+                try {
+                        ConversationResponse response;
+                        try {
+                                response = transactionTemplate.execute(
+                                                status -> findOrCreateConversation(listingId, username));
+                        } catch (DataIntegrityViolationException e) {
+                                // The other insert has committed by now, so a fresh transaction finds it
+                                log.debug("Conversation for listing {} created concurrently, re-reading", listingId);
+                                response = transactionTemplate.execute(
+                                                status -> findOrCreateConversation(listingId, username));
+                        }
+                        pending.complete(response);
+                        return response;
+                } catch (RuntimeException e) {
+                        pending.completeExceptionally(e);
+                        throw e;
+                } finally {
+                        pendingConversations.remove(key, pending);
+                }
+        }
+
+        private ConversationResponse findOrCreateConversation(Long listingId, String username) {
                 User buyer = userRepository.findByUsername(username)
                                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -61,80 +118,126 @@ public class MessageService {
                                                         .seller(seller)
                                                         .listing(listing)
                                                         .build();
-                                        return conversationRepository.save(newConv);
+                                        // IDENTITY ids insert immediately, so a duplicate fails here
+                                        Conversation saved = conversationRepository.save(newConv);
+                                        eventPublisher.publish(new ConversationStarted(saved.getId(), listingId,
+                                                        buyer.getId(), seller.getId()));
+                                        return saved;
                                 });
+                membershipCache.put(conversation.getId(),
+                                new ConversationMembership(buyer.getId(), seller.getId(), listingId));
 
-                return mapToConversationResponse(conversation, buyer);
+                return mapToConversationResponse(conversation, buyer.getId());
         }
 
-        public List<MessageResponse> getMessages(Long conversationId, String username) {
-                User user = userRepository.findByUsername(username)
-                                .orElseThrow(() -> new RuntimeException("User not found"));
-
-                Conversation conversation = conversationRepository.findById(conversationId)
-                                .orElseThrow(() -> new RuntimeException("Conversation not found"));
-
-                // Only participants can view messages
-                if (!conversation.getBuyer().getId().equals(user.getId())
-                                && !conversation.getSeller().getId().equals(user.getId())) {
-                        throw new RuntimeException("You are not a participant in this conversation");
+        private static ConversationResponse awaitConversation(CompletableFuture<ConversationResponse> inFlight) {
+                try {
+                        return inFlight.join();
+                } catch (CompletionException e) {
+                        // Same error as the request that did the work
+                        throw e.getCause() instanceof RuntimeException re ? re : e;
                 }
-
-                return messageRepository.findByConversationIdOrderBySentAtAsc(conversationId)
-                                .stream()
-                                .map(this::mapToMessageResponse)
-                                .collect(Collectors.toList());
         }
 
-        @Transactional
-        public MessageResponse sendMessage(Long conversationId, String content, String username) {
-                log.info("sendMessage called: conversationId={}, username={}, contentLength={}", conversationId,
-                                username, content != null ? content.length() : 0);
-
-                User sender = userRepository.findByUsername(username)
-                                .orElseThrow(() -> new RuntimeException("User not found"));
+        /**
+         * Returns up to {@code limit} messages older than {@code beforeId} (the latest ones
+         * when it is {@code null}), oldest first. Pages continue into the archive once the
+         * live table runs out, so scrolling back reaches the full history.
+         */
+        public List<MessageResponse> getMessages(Long conversationId, Long beforeId, int limit,
+                        AuthenticatedUser user) {
+                // Only participants can view messages
+                requireParticipant(conversationId, user);
 
-                Conversation conversation = conversationRepository.findById(conversationId)
-                                .orElseThrow(() -> new RuntimeException("Conversation not found"));
+                int size = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+                long before = beforeId != null ? beforeId : Long.MAX_VALUE;
 
-                log.info("Conversation found: buyerId={}, sellerId={}, senderId={}",
-                                conversation.getBuyer().getId(), conversation.getSeller().getId(), sender.getId());
+                List<MessageResponse> page = new ArrayList<>(
+                                messageRepository.findPageBefore(conversationId, before, PageRequest.of(0, size)));
+                if (page.size() < size) {
+                        long archiveBefore = page.isEmpty() ? before : page.get(page.size() - 1).getId();
+                        page.addAll(archivedMessageRepository.findPageBefore(conversationId, archiveBefore,
+                                        PageRequest.of(0, size - page.size())));
+                }
+                Collections.reverse(page);
+                return page;
+        }
 
+        public MessageResponse sendMessage(Long conversationId, String content, AuthenticatedUser sender) {
                 // Only participants can send messages
-                if (!conversation.getBuyer().getId().equals(sender.getId())
-                                && !conversation.getSeller().getId().equals(sender.getId())) {
-                        throw new RuntimeException("You are not a participant in this conversation");
-                }
+                ConversationMembership membership = requireParticipant(conversationId, sender);
+                long senderId = userId(sender);
 
-                Message message = Message.builder()
-                                .conversation(conversation)
-                                .sender(sender)
+                LocalDateTime sentAt = LocalDateTime.now();
+                long messageId = messageWriter.write(conversationId, senderId, membership.buyerId() == senderId,
+                                content, sentAt);
+                log.debug("Message {} sent: conversationId={}, senderId={}", messageId, conversationId, senderId);
+                eventPublisher.publish(new MessageSent(messageId, conversationId, membership.listingId(), senderId));
+
+                return MessageResponse.builder()
+                                .id(messageId)
+                                .conversationId(conversationId)
+                                .senderId(senderId)
+                                .senderUsername(sender.username())
                                 .content(content)
+                                .sentAt(sentAt)
                                 .build();
-
-                message = messageRepository.save(message);
-                conversationRepository.save(conversation);
-
-                return mapToMessageResponse(message);
         }
 
-        public ConversationResponse getConversationById(Long conversationId, String username) {
-                User user = userRepository.findByUsername(username)
-                                .orElseThrow(() -> new RuntimeException("User not found"));
+        public ConversationResponse getConversationById(Long conversationId, AuthenticatedUser user) {
+                requireParticipant(conversationId, user);
 
                 Conversation conversation = conversationRepository.findById(conversationId)
                                 .orElseThrow(() -> new RuntimeException("Conversation not found"));
 
-                if (!conversation.getBuyer().getId().equals(user.getId())
-                                && !conversation.getSeller().getId().equals(user.getId())) {
+                return mapToConversationResponse(conversation, userId(user));
+        }
+
+        public UnreadCountResponse getUnreadCount(AuthenticatedUser user) {
+                return new UnreadCountResponse(conversationRepository.sumUnreadCountByUserId(userId(user)));
+        }
+
+        /**
+         * Marks the conversation as read up to {@code messageId}, or up to the latest
+         * message when it is {@code null}. Read positions never move backwards.
+         */
+        @Transactional
+        public void markAsRead(Long conversationId, Long messageId, AuthenticatedUser user) {
+                ConversationMembership membership = requireParticipant(conversationId, user);
+
+                Long lastMessageId = messageRepository.findLastMessageIdByConversationId(conversationId);
+                if (lastMessageId == null) {
+                        return;
+                }
+                long upTo = messageId != null ? Math.min(messageId, lastMessageId) : lastMessageId;
+
+                if (membership.buyerId() == userId(user)) {
+                        conversationRepository.markReadByBuyer(conversationId, upTo);
+                } else {
+                        conversationRepository.markReadBySeller(conversationId, upTo);
+                }
+        }
+
+        private ConversationMembership requireParticipant(Long conversationId, AuthenticatedUser user) {
+                ConversationMembership membership = membershipCache.get(conversationId);
+                if (!membership.isParticipant(userId(user))) {
                         throw new RuntimeException("You are not a participant in this conversation");
                 }
+                return membership;
+        }
 
-                return mapToConversationResponse(conversation, user);
+        private long userId(AuthenticatedUser user) {
+                if (user.id() != null) {
+                        return user.id();
+                }
+                // Tokens issued before the uid claim existed only carry the username
+                return userRepository.findByUsername(user.username())
+                                .map(User::getId)
+                                .orElseThrow(() -> new RuntimeException("User not found"));
         }
 
-        private ConversationResponse mapToConversationResponse(Conversation conv, User currentUser) {
-                boolean isBuyer = conv.getBuyer().getId().equals(currentUser.getId());
+        private ConversationResponse mapToConversationResponse(Conversation conv, long currentUserId) {
+                boolean isBuyer = conv.getBuyer().getId() == currentUserId;
                 User otherUser = isBuyer ? conv.getSeller() : conv.getBuyer();
 
                 String lastMessageContent = null;
@@ -144,6 +247,13 @@ public class MessageService {
                 if (lastMsg.isPresent()) {
                         lastMessageContent = lastMsg.get().getContent();
                         lastMessageAt = lastMsg.get().getSentAt();
+                } else {
+                        // Quiet conversations may have had their whole history archived
+                        var archived = archivedMessageRepository.findLastMessageByConversationId(conv.getId());
+                        if (archived.isPresent()) {
+                                lastMessageContent = archived.get().getContent();
+                                lastMessageAt = archived.get().getSentAt();
+                        }
                 }
 
                 return ConversationResponse.builder()
@@ -156,17 +266,9 @@ public class MessageService {
                                 .lastMessage(lastMessageContent)
                                 .lastMessageAt(lastMessageAt)
                                 .createdAt(conv.getCreatedAt())
-                                .build();
-        }
-
-        private MessageResponse mapToMessageResponse(Message message) {
-                return MessageResponse.builder()
-                                .id(message.getId())
-                                .conversationId(message.getConversation().getId())
-                                .senderId(message.getSender().getId())
-                                .senderUsername(message.getSender().getUsername())
-                                .content(message.getContent())
-                                .sentAt(message.getSentAt())
+                                .unreadCount(isBuyer ? conv.getBuyerUnreadCount() : conv.getSellerUnreadCount())
+                                .otherLastReadMessageId(isBuyer ? conv.getSellerLastReadMessageId()
+                                                : conv.getBuyerLastReadMessageId())
                                 .build();
         }
 }
@@ -0,0 +1,206 @@
+package com.marketkosova.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Writes chat messages with one multi-row INSERT and one UPDATE of
+ * {@code conversations} (activity time and unread counters) per transaction.
+ * <p>
+ * By default every message is written in the sender's thread. With
+ * {@code app.messages.batching.enabled=true} messages are queued instead and a
+ * single writer thread group-commits everything that arrives within
+ * {@code app.messages.batching.window-ms}, trading a few milliseconds of
+ * latency for far fewer commits under chat bursts.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MessageWriter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.messages.batching.enabled:false}")
+    private boolean batchingEnabled;
+
+    @Value("${app.messages.batching.window-ms:5}")
+    private long windowMillis;
+
+    @Value("${app.messages.batching.max-batch-size:200}")
+    private int maxBatchSize;
+
+    @Value("${app.messages.batching.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<PendingMessage> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private record PendingMessage(long conversationId, long senderId, boolean fromBuyer, String content,
+                                  LocalDateTime sentAt, CompletableFuture<Long> id) {
+    }
+
+    private static final class ConversationUpdate {
+        LocalDateTime latest;
+        int buyerUnread;
+        int sellerUnread;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!batchingEnabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writerThread = new Thread(this::drainLoop, "message-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stores a message and returns its generated id once it is committed. The
+     * other participant's unread counter is incremented in the same transaction.
+     */
+    public long write(long conversationId, long senderId, boolean fromBuyer, String content, LocalDateTime sentAt) {
+        PendingMessage message = new PendingMessage(conversationId, senderId, fromBuyer, content, sentAt,
+                new CompletableFuture<>());
+        // When the queue is full the sender writes its own message, which slows producers down
+        if (!batchingEnabled || !queue.offer(message)) {
+            writeBatch(List.of(message));
+        }
+        try {
+            return message.id().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while sending message");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+        }
+    }
+
+    private void drainLoop() {
+        List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+                while (batch.size() < maxBatchSize) {
+                    PendingMessage next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                // Shutdown: keep draining what is already queued
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingMessage> batch) {
+        try {
+            List<Long> ids = transactionTemplate.execute(status -> {
+                // Conversation rows are locked before the messages exist, see ConversationRepository.markReadByBuyer
+                updateConversations(batch);
+                return insertMessages(batch);
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).id().complete(ids.get(i));
+            }
+            if (batch.size() > 1) {
+                log.debug("Group-committed {} messages", batch.size());
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(message -> message.id().completeExceptionally(e));
+        }
+    }
+
+    private List<Long> insertMessages(List<PendingMessage> batch) {
+        StringBuilder sql = new StringBuilder("INSERT INTO messages (conversation_id, sender_id, content, sent_at) VALUES ");
+        for (int i = 0; i < batch.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS);
+            int index = 1;
+            for (PendingMessage message : batch) {
+                ps.setLong(index++, message.conversationId());
+                ps.setLong(index++, message.senderId());
+                ps.setString(index++, message.content());
+                ps.setTimestamp(index++, Timestamp.valueOf(message.sentAt()));
+            }
+            return ps;
+        }, keyHolder);
+
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            ids.add(((Number) keys.values().iterator().next()).longValue());
+        }
+        if (ids.size() != batch.size()) {
+            throw new IllegalStateException("Expected " + batch.size() + " generated ids but got " + ids.size());
+        }
+        return ids;
+    }
+
+    private void updateConversations(List<PendingMessage> batch) {
+        // Sorted so concurrent writers lock conversation rows in the same order
+        Map<Long, ConversationUpdate> updates = new TreeMap<>();
+        for (PendingMessage message : batch) {
+            ConversationUpdate update = updates.computeIfAbsent(message.conversationId(), id -> new ConversationUpdate());
+            if (update.latest == null || message.sentAt().isAfter(update.latest)) {
+                update.latest = message.sentAt();
+            }
+            if (message.fromBuyer()) {
+                update.sellerUnread++;
+            } else {
+                update.buyerUnread++;
+            }
+        }
+        List<Object[]> args = new ArrayList<>(updates.size());
+        updates.forEach((id, update) -> args.add(new Object[]{
+                Timestamp.valueOf(update.latest), update.buyerUnread, update.sellerUnread, id}));
+
+        String sql = "UPDATE conversations SET updated_at = ?, buyer_unread_count = buyer_unread_count + ?, " +
+                "seller_unread_count = seller_unread_count + ? WHERE id = ?";
+        if (args.size() == 1) {
+            jdbcTemplate.update(sql, args.get(0));
+        } else {
+            jdbcTemplate.batchUpdate(sql, args);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writerThread != null) {
+            running = false;
+            writerThread.interrupt();
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.marketkosova.service;
+
+import com.marketkosova.jobs.JobContext;
+import com.marketkosova.jobs.MaintenanceJob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deletes uploaded files that no listing refers to, such as images of a create that
+ * failed after the upload or whose cleanup event was lost. Files younger than
+ * {@code min-age-hours} are left alone, since their listing may not be committed yet.
+ * A run reads the upload directory once, through a directory stream kept open between its
+ * chunks of {@code batch-size} entries; the checkpoint is the number of entries read, so a
+ * run resumed elsewhere skips that many. With a concurrency above one each slot takes its
+ * share of names.
+ * <p>
+ * The job runs on one node at a time, so {@code app.upload.dir} must be storage every node
+ * shares (as it already must be for any node to serve every image); a node-local directory
+ * would only ever be swept on the node that happens to take the lease.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrphanUploadCleanup implements MaintenanceJob {
+
+    private final FileStorageService fileStorageService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.jobs.orphan-upload-cleanup.interval:86400000}")
+    private long interval;
+
+    @Value("${app.jobs.orphan-upload-cleanup.concurrency:1}")
+    private int concurrency;
+
+    @Value("${app.jobs.orphan-upload-cleanup.min-age-hours:24}")
+    private long minAgeHours;
+
+    @Value("${app.jobs.orphan-upload-cleanup.batch-size:500}")
+    private int batchSize;
+
+    // The directory stream of the run in progress on this node, per slot
+    private final Map<Integer, Sweep> sweeps = new ConcurrentHashMap<>();
+
+    @Override
+    public String name() {
+        return "orphan-upload-cleanup";
+    }
+
+    @Override
+    public long intervalMillis() {
+        return interval;
+    }
+
+    @Override
+    public int concurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public String runChunk(JobContext context) {
+        long position = position(context.checkpoint());
+        Sweep sweep = sweeps.get(context.slot());
+        if (sweep == null || sweep.position != position) {
+            // A new run, or one resumed from another node's checkpoint
+            if (sweep != null) {
+                sweep.close();
+            }
+            sweep = new Sweep(fileStorageService.getUploadDir(), position);
+            sweeps.put(context.slot(), sweep);
+        }
+        List<Path> files = sweep.next(batchSize);
+
+        FileTime youngest = FileTime.from(Instant.now().minus(minAgeHours, ChronoUnit.HOURS));
+        List<String> candidates = files.stream()
+                .filter(file -> context.owns(file.getFileName().toString()))
+                .filter(file -> Files.isRegularFile(file) && modifiedBefore(file, youngest))
+                .map(file -> file.getFileName().toString())
+                .toList();
+        Set<String> referenced = referenced(candidates);
+        int deleted = 0;
+        for (String name : candidates) {
+            if (!referenced.contains(name)) {
+                fileStorageService.deleteFile(name);
+                deleted++;
+            }
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} unreferenced uploads", deleted);
+        }
+        if (sweep.finished()) {
+            sweep.close();
+            sweeps.remove(context.slot());
+            return null;
+        }
+        return Long.toString(sweep.position);
+    }
+
+    private static long position(String checkpoint) {
+        if (checkpoint == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(checkpoint);
+        } catch (NumberFormatException e) {
+            // Not a checkpoint of this job's format; start the sweep over
+            return 0;
+        }
+    }
+
+    private Set<String> referenced(List<String> names) {
+        if (names.isEmpty()) {
+            return Set.of();
+        }
+        String in = String.join(",", Collections.nCopies(names.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT image FROM listings WHERE image IN (" + in + ")", String.class, names.toArray()));
+    }
+
+    private static boolean modifiedBefore(Path file, FileTime time) {
+        try {
+            return Files.getLastModifiedTime(file).compareTo(time) < 0;
+        } catch (IOException e) {
+            // Deleted meanwhile
+            return false;
+        }
+    }
+
+    /**
+     * One pass over the upload directory. The order is the file system's, which is why the
+     * position, not a name, is the checkpoint; files added or removed during a resumed run may
+     * be checked twice or left for the next run.
+     */
+    private static final class Sweep {
+
+        private final Path directory;
+        private final DirectoryStream<Path> stream;
+        private final Iterator<Path> entries;
+        long position;
+
+        Sweep(Path directory, long skip) {
+            this.directory = directory;
+            try {
+                stream = Files.newDirectoryStream(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not list " + directory, e);
+            }
+            entries = stream.iterator();
+            while (position < skip && hasNext()) {
+                entries.next();
+                position++;
+            }
+        }
+
+        List<Path> next(int count) {
+            List<Path> batch = new ArrayList<>(count);
+            while (batch.size() < count && hasNext()) {
+                batch.add(entries.next());
+                position++;
+            }
+            return batch;
+        }
+
+        boolean finished() {
+            return !hasNext();
+        }
+
+        void close() {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                log.debug("Could not close the listing of {}", directory, e);
+            }
+        }
+
+        private boolean hasNext() {
+            try {
+                return entries.hasNext();
+            } catch (DirectoryIteratorException e) {
+                close();
+                throw new UncheckedIOException("Could not list " + directory, e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.marketkosova.service;
+
+import com.marketkosova.entity.RefreshToken;
+import com.marketkosova.entity.User;
+import com.marketkosova.repository.RefreshTokenRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${app.jwt.refresh-expiration}")
+    private long refreshExpiration;
+
+    /**
+     * Creates a new refresh token for the user and returns the raw value.
+     * Only its hash is persisted.
+     */
+    @Transactional
+    public String issue(User user) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = RefreshToken.builder()
+                .user(user)
+                .tokenHash(hash(rawToken))
+                .expiresAt(LocalDateTime.now().plus(Duration.ofMillis(refreshExpiration)))
+                .build();
+        refreshTokenRepository.save(refreshToken);
+
+        return rawToken;
+    }
+
+    /**
+     * Revokes the given refresh token and returns its owner so a new pair can be issued.
+     * Presenting a token that was already rotated is treated as theft, and every
+     * refresh token of that user is revoked.
+     */
+    @Transactional(noRollbackFor = RuntimeException.class)
+    public User rotate(String rawToken) {
+        RefreshToken refreshToken = refreshTokenRepository.findWithUserByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
+
+        LocalDateTime now = LocalDateTime.now();
+        if (refreshToken.getRevokedAt() != null) {
+            throw reused(refreshToken, now);
+        }
+        if (refreshToken.getExpiresAt().isBefore(now)) {
+            throw new RuntimeException("Refresh token has expired");
+        }
+
+        // Conditional write, so of two concurrent refreshes with the same token only one wins
+        if (refreshTokenRepository.revokeIfActive(refreshToken.getId(), now) == 0) {
+            throw reused(refreshToken, now);
+        }
+        return refreshToken.getUser();
+    }
+
+    private RuntimeException reused(RefreshToken refreshToken, LocalDateTime now) {
+        refreshTokenRepository.revokeAllByUserId(refreshToken.getUser().getId(), now);
+        return new RuntimeException("Refresh token has already been used");
+    }
+
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .filter(token -> token.getRevokedAt() == null)
+                .ifPresent(token -> token.setRevokedAt(LocalDateTime.now()));
+    }
+
+    private String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
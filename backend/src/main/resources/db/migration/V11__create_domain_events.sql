@@ -0,0 +1,12 @@
+-- =============================================
+-- V11: Create transactional outbox for domain events
+-- =============================================
+
+-- Rows are written in the same transaction as the change they describe and
+-- deleted once every consumer has handled them; leftovers are replayed on startup.
+CREATE TABLE IF NOT EXISTS domain_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(64) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at DATETIME(6) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,6 @@
+-- =============================================
+-- V12: Add optimistic locking version to listings
+-- =============================================
+
+-- Incremented by Hibernate on every update; exposed as the listing's ETag.
+ALTER TABLE listings ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,17 @@
+-- =============================================
+-- V13: Create idempotency keys for retried creates
+-- =============================================
+
+-- One row per (endpoint, user, Idempotency-Key), shared by all application nodes.
+-- id is the SHA-256 of that triple; response_body holds the JSON replayed to retries.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id CHAR(64) PRIMARY KEY,
+    scope VARCHAR(100) NOT NULL,
+    request_hash CHAR(64) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    response_body MEDIUMTEXT,
+    created_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE INDEX idx_idempotency_keys_expires ON idempotency_keys(expires_at);
@@ -0,0 +1,33 @@
+-- =============================================
+-- V14: Denormalized read model for listing browse queries
+-- =============================================
+
+-- One flat row per listing with the seller's username and the category name inlined.
+-- Written by ListingService in the same transaction as the listing itself.
+CREATE TABLE IF NOT EXISTS listing_view (
+    id BIGINT PRIMARY KEY,
+    title VARCHAR(200) NOT NULL,
+    description TEXT,
+    price DECIMAL(10, 2) NOT NULL,
+    location VARCHAR(200),
+    image VARCHAR(500),
+    created_at DATETIME(6),
+    user_id BIGINT NOT NULL,
+    username VARCHAR(50) NOT NULL,
+    category_id BIGINT NOT NULL,
+    category_name VARCHAR(100) NOT NULL,
+    latitude DOUBLE,
+    longitude DOUBLE,
+    version BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE INDEX idx_listing_view_created ON listing_view(created_at);
+CREATE INDEX idx_listing_view_category_created ON listing_view(category_id, created_at);
+
+INSERT INTO listing_view (id, title, description, price, location, image, created_at,
+                          user_id, username, category_id, category_name, latitude, longitude, version)
+SELECT l.id, l.title, l.description, l.price, l.location, l.image, l.created_at,
+       u.id, u.username, c.id, c.name, l.latitude, l.longitude, l.version
+FROM listings l
+JOIN users u ON u.id = l.user_id
+JOIN categories c ON c.id = l.category_id;
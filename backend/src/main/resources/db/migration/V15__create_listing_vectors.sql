@@ -0,0 +1,14 @@
+-- =============================================
+-- V15: Feature vectors for similar-listing search
+-- =============================================
+
+-- One quantized vector per listing (one signed byte per dimension), computed from the
+-- title, description, category and price. Rows whose features_version or
+-- listing_version lag behind are recomputed at startup.
+CREATE TABLE IF NOT EXISTS listing_vectors (
+    listing_id BIGINT PRIMARY KEY,
+    vector VARBINARY(255) NOT NULL,
+    features_version INT NOT NULL,
+    listing_version BIGINT NOT NULL,
+    CONSTRAINT fk_listing_vectors_listing FOREIGN KEY (listing_id) REFERENCES listings(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
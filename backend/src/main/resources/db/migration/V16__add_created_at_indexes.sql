@@ -0,0 +1,11 @@
+-- =============================================
+-- V16: Indexes for newest-first reads and the trending window
+-- =============================================
+
+-- Newest-first listing pages read this index from the top. MySQL can also walk an
+-- ascending index backwards, but H2 (local and test profiles) cannot and sorts every row
+DROP INDEX idx_listings_created_at ON listings;
+CREATE INDEX idx_listings_created_at ON listings(created_at DESC);
+
+-- FeedSnapshotService counts conversations created in the last days per listing
+CREATE INDEX idx_conversations_created ON conversations(created_at);
@@ -0,0 +1,19 @@
+-- =============================================
+-- V17: Leases for cluster-wide maintenance jobs
+-- =============================================
+
+-- One row per job slot (see JobScheduler). A node runs a slot while it owns an unexpired
+-- lease; checkpoint is where an interrupted run resumes, next_run_at when the slot is due.
+-- All times come from the database clock, so nodes need not agree on theirs.
+CREATE TABLE IF NOT EXISTS job_leases (
+    job_name VARCHAR(100) NOT NULL,
+    slot INT NOT NULL,
+    owner VARCHAR(100) NULL,
+    lease_until DATETIME(3) NULL,
+    next_run_at DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    checkpoint VARCHAR(1000) NULL,
+    PRIMARY KEY (job_name, slot)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Orphan upload cleanup looks up which stored file names are still referenced
+CREATE INDEX idx_listings_image ON listings(image);
@@ -0,0 +1,9 @@
+-- =============================================
+-- V19: Lease for in-progress idempotency keys
+-- =============================================
+
+-- The node running a request renews lease_until while it works; another node only takes
+-- an IN_PROGRESS key over once the lease has run out, not when the request is merely slow.
+ALTER TABLE idempotency_keys ADD COLUMN lease_until DATETIME(6) NULL;
+
+UPDATE idempotency_keys SET lease_until = created_at WHERE status = 'IN_PROGRESS';
@@ -0,0 +1,15 @@
+-- =============================================
+-- V5: Composite indexes for filtered listing queries
+-- =============================================
+
+-- Category feed sorted by date, and category facet counts
+CREATE INDEX idx_listings_category_created ON listings(category_id, created_at);
+
+-- Price range filters within a category, and price bucket counts
+CREATE INDEX idx_listings_category_price ON listings(category_id, price);
+
+-- Price range filters and price sorting across all categories
+CREATE INDEX idx_listings_price ON listings(price);
+
+-- Superseded by idx_listings_category_created, which also backs the foreign key
+DROP INDEX idx_listings_category_id ON listings;
@@ -0,0 +1,188 @@
+-- =============================================
+-- V7: Geocode existing listing locations
+-- =============================================
+
+-- Frozen copy of the municipality gazetteer as it stood when this ran: every name and alias,
+-- as written and without diacritics, lower case. ListingService geocodes new listings with
+-- the live gazetteer (geo/kosovo-municipalities.csv); this table is not kept in sync with it.
+CREATE TABLE geocode_names (
+    name VARCHAR(100) NOT NULL,
+    latitude DOUBLE NOT NULL,
+    longitude DOUBLE NOT NULL,
+    name_length INT NOT NULL,
+    position INT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+INSERT INTO geocode_names (name, latitude, longitude, name_length, position) VALUES
+    ('prishtinë', 42.6629, 21.1655, 9, 1),
+    ('prishtine', 42.6629, 21.1655, 9, 1),
+    ('prishtina', 42.6629, 21.1655, 9, 2),
+    ('pristina', 42.6629, 21.1655, 8, 3),
+    ('priština', 42.6629, 21.1655, 8, 4),
+    ('pristina', 42.6629, 21.1655, 8, 4),
+    ('prishtine', 42.6629, 21.1655, 9, 5),
+    ('prizren', 42.2139, 20.7397, 7, 6),
+    ('prizreni', 42.2139, 20.7397, 8, 7),
+    ('ferizaj', 42.3703, 21.1553, 7, 8),
+    ('ferizaji', 42.3703, 21.1553, 8, 9),
+    ('uroševac', 42.3703, 21.1553, 8, 10),
+    ('urosevac', 42.3703, 21.1553, 8, 10),
+    ('urosevac', 42.3703, 21.1553, 8, 11),
+    ('pejë', 42.6593, 20.2887, 4, 12),
+    ('peje', 42.6593, 20.2887, 4, 12),
+    ('peja', 42.6593, 20.2887, 4, 13),
+    ('peć', 42.6593, 20.2887, 3, 14),
+    ('pec', 42.6593, 20.2887, 3, 14),
+    ('pec', 42.6593, 20.2887, 3, 15),
+    ('gjakovë', 42.3803, 20.4308, 7, 16),
+    ('gjakove', 42.3803, 20.4308, 7, 16),
+    ('gjakova', 42.3803, 20.4308, 7, 17),
+    ('đakovica', 42.3803, 20.4308, 8, 18),
+    ('dakovica', 42.3803, 20.4308, 8, 18),
+    ('djakovica', 42.3803, 20.4308, 9, 19),
+    ('dakovica', 42.3803, 20.4308, 8, 20),
+    ('gjilan', 42.4635, 21.4694, 6, 21),
+    ('gjilani', 42.4635, 21.4694, 7, 22),
+    ('gnjilane', 42.4635, 21.4694, 8, 23),
+    ('mitrovicë', 42.8826, 20.8661, 9, 24),
+    ('mitrovice', 42.8826, 20.8661, 9, 24),
+    ('mitrovica', 42.8826, 20.8661, 9, 25),
+    ('mitrovicë e jugut', 42.8826, 20.8661, 17, 26),
+    ('mitrovice e jugut', 42.8826, 20.8661, 17, 26),
+    ('south mitrovica', 42.8826, 20.8661, 15, 27),
+    ('kosovska mitrovica', 42.8826, 20.8661, 18, 28),
+    ('mitrovicë e veriut', 42.8950, 20.8660, 18, 29),
+    ('mitrovice e veriut', 42.8950, 20.8660, 18, 29),
+    ('mitrovica e veriut', 42.8950, 20.8660, 18, 30),
+    ('north mitrovica', 42.8950, 20.8660, 15, 31),
+    ('severna mitrovica', 42.8950, 20.8660, 17, 32),
+    ('podujevë', 42.9106, 21.1931, 8, 33),
+    ('podujeve', 42.9106, 21.1931, 8, 33),
+    ('podujeva', 42.9106, 21.1931, 8, 34),
+    ('podujevo', 42.9106, 21.1931, 8, 35),
+    ('vushtrri', 42.8231, 20.9675, 8, 36),
+    ('vushtrria', 42.8231, 20.9675, 9, 37),
+    ('vučitrn', 42.8231, 20.9675, 7, 38),
+    ('vucitrn', 42.8231, 20.9675, 7, 38),
+    ('vucitrn', 42.8231, 20.9675, 7, 39),
+    ('suharekë', 42.3580, 20.8250, 8, 40),
+    ('suhareke', 42.3580, 20.8250, 8, 40),
+    ('suhareka', 42.3580, 20.8250, 8, 41),
+    ('suva reka', 42.3580, 20.8250, 9, 42),
+    ('rahovec', 42.3992, 20.6547, 7, 43),
+    ('rahoveci', 42.3992, 20.6547, 8, 44),
+    ('orahovac', 42.3992, 20.6547, 8, 45),
+    ('drenas', 42.6283, 20.8936, 6, 46),
+    ('gllogoc', 42.6283, 20.8936, 7, 47),
+    ('glogovac', 42.6283, 20.8936, 8, 48),
+    ('lipjan', 42.5217, 21.1258, 6, 49),
+    ('lipjani', 42.5217, 21.1258, 7, 50),
+    ('lipljan', 42.5217, 21.1258, 7, 51),
+    ('malishevë', 42.4828, 20.7458, 9, 52),
+    ('malisheve', 42.4828, 20.7458, 9, 52),
+    ('malisheva', 42.4828, 20.7458, 9, 53),
+    ('mališevo', 42.4828, 20.7458, 8, 54),
+    ('malisevo', 42.4828, 20.7458, 8, 54),
+    ('kamenicë', 42.5781, 21.5803, 8, 55),
+    ('kamenice', 42.5781, 21.5803, 8, 55),
+    ('kamenica', 42.5781, 21.5803, 8, 56),
+    ('viti', 42.3214, 21.3581, 4, 57),
+    ('vitia', 42.3214, 21.3581, 5, 58),
+    ('vitina', 42.3214, 21.3581, 6, 59),
+    ('deçan', 42.5403, 20.2886, 5, 60),
+    ('decan', 42.5403, 20.2886, 5, 60),
+    ('deçani', 42.5403, 20.2886, 6, 61),
+    ('decani', 42.5403, 20.2886, 6, 61),
+    ('dečani', 42.5403, 20.2886, 6, 62),
+    ('decani', 42.5403, 20.2886, 6, 62),
+    ('istog', 42.7808, 20.4875, 5, 63),
+    ('istogu', 42.7808, 20.4875, 6, 64),
+    ('istok', 42.7808, 20.4875, 5, 65),
+    ('klinë', 42.6203, 20.5778, 5, 66),
+    ('kline', 42.6203, 20.5778, 5, 66),
+    ('klina', 42.6203, 20.5778, 5, 67),
+    ('skenderaj', 42.7467, 20.7886, 9, 68),
+    ('skenderaji', 42.7467, 20.7886, 10, 69),
+    ('srbica', 42.7467, 20.7886, 6, 70),
+    ('dragash', 42.0611, 20.6533, 7, 71),
+    ('dragashi', 42.0611, 20.6533, 8, 72),
+    ('dragaš', 42.0611, 20.6533, 6, 73),
+    ('dragas', 42.0611, 20.6533, 6, 73),
+    ('fushë kosovë', 42.6381, 21.0961, 12, 74),
+    ('fushe kosove', 42.6381, 21.0961, 12, 74),
+    ('fushë kosova', 42.6381, 21.0961, 12, 75),
+    ('fushe kosova', 42.6381, 21.0961, 12, 75),
+    ('kosovo polje', 42.6381, 21.0961, 12, 76),
+    ('kaçanik', 42.2319, 21.2594, 7, 77),
+    ('kacanik', 42.2319, 21.2594, 7, 77),
+    ('kaçaniku', 42.2319, 21.2594, 8, 78),
+    ('kacaniku', 42.2319, 21.2594, 8, 78),
+    ('kačanik', 42.2319, 21.2594, 7, 79),
+    ('kacanik', 42.2319, 21.2594, 7, 79),
+    ('obiliq', 42.6869, 21.0703, 6, 80),
+    ('obiliqi', 42.6869, 21.0703, 7, 81),
+    ('obilić', 42.6869, 21.0703, 6, 82),
+    ('obilic', 42.6869, 21.0703, 6, 82),
+    ('shtime', 42.4331, 21.0397, 6, 83),
+    ('shtimja', 42.4331, 21.0397, 7, 84),
+    ('štimlje', 42.4331, 21.0397, 7, 85),
+    ('stimlje', 42.4331, 21.0397, 7, 85),
+    ('shtërpcë', 42.2394, 21.0272, 8, 86),
+    ('shterpce', 42.2394, 21.0272, 8, 86),
+    ('shtërpca', 42.2394, 21.0272, 8, 87),
+    ('shterpca', 42.2394, 21.0272, 8, 87),
+    ('štrpce', 42.2394, 21.0272, 6, 88),
+    ('strpce', 42.2394, 21.0272, 6, 88),
+    ('novobërdë', 42.6150, 21.4300, 9, 89),
+    ('novoberde', 42.6150, 21.4300, 9, 89),
+    ('novobërda', 42.6150, 21.4300, 9, 90),
+    ('novoberda', 42.6150, 21.4300, 9, 90),
+    ('novo brdo', 42.6150, 21.4300, 9, 91),
+    ('zubin potok', 42.9144, 20.6897, 11, 92),
+    ('zveçan', 42.9075, 20.8403, 6, 93),
+    ('zvecan', 42.9075, 20.8403, 6, 93),
+    ('zvečan', 42.9075, 20.8403, 6, 94),
+    ('zvecan', 42.9075, 20.8403, 6, 94),
+    ('leposaviq', 43.1039, 20.8028, 9, 95),
+    ('leposavić', 43.1039, 20.8028, 9, 96),
+    ('leposavic', 43.1039, 20.8028, 9, 96),
+    ('graçanicë', 42.6000, 21.1933, 9, 97),
+    ('gracanice', 42.6000, 21.1933, 9, 97),
+    ('graçanica', 42.6000, 21.1933, 9, 98),
+    ('gracanica', 42.6000, 21.1933, 9, 98),
+    ('gračanica', 42.6000, 21.1933, 9, 99),
+    ('gracanica', 42.6000, 21.1933, 9, 99),
+    ('hani i elezit', 42.1500, 21.2967, 13, 100),
+    ('elez han', 42.1500, 21.2967, 8, 101),
+    ('đeneral janković', 42.1500, 21.2967, 16, 102),
+    ('deneral jankovic', 42.1500, 21.2967, 16, 102),
+    ('junik', 42.4761, 20.2775, 5, 103),
+    ('mamushë', 42.3250, 20.7250, 7, 104),
+    ('mamushe', 42.3250, 20.7250, 7, 104),
+    ('mamusha', 42.3250, 20.7250, 7, 105),
+    ('mamuša', 42.3250, 20.7250, 6, 106),
+    ('mamusa', 42.3250, 20.7250, 6, 106),
+    ('kllokot', 42.3697, 21.3792, 7, 107),
+    ('klokot', 42.3697, 21.3792, 6, 108),
+    ('ranillug', 42.4922, 21.5989, 8, 109),
+    ('ranilug', 42.4922, 21.5989, 7, 110),
+    ('partesh', 42.4019, 21.4336, 7, 111),
+    ('parteš', 42.4019, 21.4336, 6, 112),
+    ('partes', 42.4019, 21.4336, 6, 112);
+
+-- Names match as whole words of the location with punctuation turned into spaces, and the
+-- longest name wins, so "Mitrovica e Veriut" is not resolved as "Mitrovica"
+UPDATE listings SET
+    latitude = (SELECT g.latitude FROM geocode_names g
+                WHERE CONCAT(' ', LOWER(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(listings.location,
+                          ',', ' '), '.', ' '), '-', ' '), '/', ' '), '(', ' '), ')', ' ')), ' ')
+                      LIKE CONCAT('% ', g.name, ' %')
+                ORDER BY g.name_length DESC, g.position LIMIT 1),
+    longitude = (SELECT g.longitude FROM geocode_names g
+                 WHERE CONCAT(' ', LOWER(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(listings.location,
+                           ',', ' '), '.', ' '), '-', ' '), '/', ' '), '(', ' '), ')', ' ')), ' ')
+                       LIKE CONCAT('% ', g.name, ' %')
+                 ORDER BY g.name_length DESC, g.position LIMIT 1)
+WHERE latitude IS NULL AND location IS NOT NULL;
+
+DROP TABLE geocode_names;
@@ -0,0 +1,11 @@
+-- =============================================
+-- V8: Create listing statistics table
+-- =============================================
+
+-- Counters are aggregated in memory and flushed here in batches
+CREATE TABLE IF NOT EXISTS listing_stats (
+    listing_id BIGINT PRIMARY KEY,
+    view_count BIGINT NOT NULL DEFAULT 0,
+    updated_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    CONSTRAINT fk_listing_stats_listing FOREIGN KEY (listing_id) REFERENCES listings(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,184 @@
+package com.marketkosova.catalog;
+
+import com.marketkosova.dto.ListingSort;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogIndexTest {
+
+    private static final long[] ALL = new long[0];
+
+    private record Listing(long id, long categoryId, long price, long createdAt) {
+    }
+
+    @Test
+    void sortsByDateAndPriceWithTiesNewestFirst() {
+        CatalogIndex index = new CatalogIndex(100);
+        index.put(1, 1, 500, 1_000, 0);
+        index.put(2, 1, 300, 2_000, 0);
+        index.put(3, 2, 500, 3_000, 0);
+        index.put(4, 2, 100, 3_000, 0);
+
+        assertThat(ids(index, ALL, ListingSort.NEWEST)).containsExactly(4L, 3L, 2L, 1L);
+        assertThat(ids(index, ALL, ListingSort.OLDEST)).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(ids(index, ALL, ListingSort.PRICE_ASC)).containsExactly(4L, 2L, 3L, 1L);
+        assertThat(ids(index, ALL, ListingSort.PRICE_DESC)).containsExactly(3L, 1L, 2L, 4L);
+    }
+
+    @Test
+    void pagesAcrossCategoriesWithTotalAndInclusivePriceRange() {
+        CatalogIndex index = new CatalogIndex(100);
+        for (long id = 1; id <= 10; id++) {
+            index.put(id, id % 3, id * 100, id, 0);
+        }
+
+        CatalogIndex.Page page = index.page(new long[]{1, 2}, 200, 800, ListingSort.NEWEST, 1, 2);
+
+        // Categories 1 and 2 in 200..800: 2, 4, 5, 7, 8
+        assertThat(page.total()).isEqualTo(5);
+        assertThat(page.listingIds()).containsExactly(7L, 5L);
+        assertThat(index.page(new long[]{1, 2}, 200, 800, ListingSort.NEWEST, 4, 2).listingIds())
+                .containsExactly(2L);
+        assertThat(index.page(new long[]{1, 2}, 200, 800, ListingSort.NEWEST, 5, 2).listingIds()).isEmpty();
+    }
+
+    @Test
+    void countsPerCategoryAndPriceBucket() {
+        CatalogIndex index = new CatalogIndex(100);
+        index.put(1, 1, 100, 1, 0);
+        index.put(2, 1, 250, 2, 0);
+        index.put(3, 2, 250, 3, 0);
+        index.put(4, 2, 900, 4, 0);
+
+        assertThat(index.countByCategory(200, 300)).isEqualTo(Map.of(1L, 1L, 2L, 1L));
+        assertThat(index.countByPriceBuckets(ALL, new long[]{200, 500})).containsExactly(1, 2, 1);
+        assertThat(index.countByPriceBuckets(new long[]{2}, new long[]{200, 500})).containsExactly(0, 1, 1);
+    }
+
+    @Test
+    void ignoresOlderVersionsAndMovesUpdatedListingsBetweenCategories() {
+        CatalogIndex index = new CatalogIndex(100);
+        index.put(1, 1, 100, 1, 2);
+
+        index.put(1, 2, 999, 1, 1);
+        assertThat(ids(index, new long[]{1}, ListingSort.NEWEST)).containsExactly(1L);
+        assertThat(index.countByPriceBuckets(ALL, new long[]{500})).containsExactly(1, 0);
+
+        index.put(1, 2, 999, 1, 3);
+        assertThat(ids(index, new long[]{1}, ListingSort.NEWEST)).isEmpty();
+        assertThat(ids(index, new long[]{2}, ListingSort.NEWEST)).containsExactly(1L);
+        assertThat(index.countByCategory(Long.MIN_VALUE, Long.MAX_VALUE)).isEqualTo(Map.of(2L, 1L));
+    }
+
+    @Test
+    void refusesListingsPastTheLimitAndReusesFreedSlots() {
+        CatalogIndex index = new CatalogIndex(2);
+        assertThat(index.put(1, 1, 100, 1, 0)).isTrue();
+        assertThat(index.put(2, 1, 100, 2, 0)).isTrue();
+        assertThat(index.put(3, 1, 100, 3, 0)).isFalse();
+
+        index.remove(1);
+        assertThat(index.put(3, 1, 100, 3, 0)).isTrue();
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(ids(index, ALL, ListingSort.OLDEST)).containsExactly(2L, 3L);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ListingSort.class)
+    void loadedAndLiveIndexesMatchABruteForceModel(ListingSort sort) {
+        Random random = new Random(7);
+        Map<Long, Listing> model = new HashMap<>();
+        CatalogIndex loaded = new CatalogIndex(10_000);
+        for (long id = 1; id <= 3_000; id++) {
+            Listing listing = new Listing(id, 1 + random.nextInt(4), random.nextInt(50) * 100L, random.nextInt(500));
+            model.put(id, listing);
+            loaded.load(id, listing.categoryId(), listing.price(), listing.createdAt(), 0);
+        }
+        loaded.finishLoad();
+
+        // Enough live writes to split and empty blocks of the posting lists
+        CatalogIndex live = new CatalogIndex(10_000);
+        model.values().forEach(l -> live.put(l.id(), l.categoryId(), l.price(), l.createdAt(), 0));
+        for (int i = 0; i < 3_000; i++) {
+            long id = 1 + random.nextInt(4_000);
+            if (random.nextInt(3) == 0) {
+                model.remove(id);
+                loaded.remove(id);
+                live.remove(id);
+            } else {
+                Listing listing = new Listing(id, 1 + random.nextInt(4), random.nextInt(50) * 100L,
+                        random.nextInt(500));
+                model.put(id, listing);
+                loaded.put(id, listing.categoryId(), listing.price(), listing.createdAt(), i);
+                live.put(id, listing.categoryId(), listing.price(), listing.createdAt(), i);
+            }
+        }
+
+        for (long[] categories : List.of(ALL, new long[]{2}, new long[]{1, 3})) {
+            List<Long> expected = model.values().stream()
+                    .filter(l -> categories.length == 0 || LongStream.of(categories).anyMatch(c -> c == l.categoryId()))
+                    .filter(l -> l.price() >= 1_000 && l.price() <= 3_000)
+                    .sorted(order(sort))
+                    .map(Listing::id)
+                    .collect(Collectors.toList());
+            for (CatalogIndex index : List.of(loaded, live)) {
+                CatalogIndex.Page page = index.page(categories, 1_000, 3_000, sort, 0, Integer.MAX_VALUE);
+                assertThat(page.total()).isEqualTo(expected.size());
+                assertThat(boxed(page.listingIds())).containsExactlyElementsOf(expected);
+                assertThat(boxed(index.page(categories, 1_000, 3_000, sort, 100, 20).listingIds()))
+                        .containsExactlyElementsOf(expected.subList(100, 120));
+            }
+        }
+        assertThat(loaded.size()).isEqualTo(model.size());
+        assertThat(live.size()).isEqualTo(model.size());
+    }
+
+    @Test
+    void slotListStaysOrderedWhileBlocksSplitAndEmpty() {
+        CatalogIndex.SlotList list = new CatalogIndex.SlotList(Integer::compare);
+        List<Integer> slots = new ArrayList<>(IntStream.range(0, 5_000).boxed().toList());
+        Collections.shuffle(slots, new Random(3));
+        slots.forEach(list::insert);
+        assertThat(IntStream.range(0, list.size()).map(list::get).boxed().toList())
+                .containsExactlyElementsOf(IntStream.range(0, 5_000).boxed().toList());
+
+        Collections.shuffle(slots, new Random(4));
+        slots.subList(0, 4_990).forEach(list::remove);
+        assertThat(IntStream.range(0, list.size()).map(list::get).boxed().toList())
+                .containsExactlyElementsOf(slots.subList(4_990, 5_000).stream().sorted().toList());
+        assertThat(list.firstNotBefore(slot -> slot < 2_500)).isEqualTo(
+                (int) slots.subList(4_990, 5_000).stream().filter(slot -> slot < 2_500).count());
+    }
+
+    private static Comparator<Listing> order(ListingSort sort) {
+        Comparator<Listing> oldest = Comparator.comparingLong(Listing::createdAt).thenComparingLong(Listing::id);
+        return switch (sort) {
+            case NEWEST -> oldest.reversed();
+            case OLDEST -> oldest;
+            case PRICE_ASC -> Comparator.comparingLong(Listing::price).thenComparing(oldest.reversed());
+            case PRICE_DESC -> Comparator.comparingLong(Listing::price).reversed().thenComparing(oldest.reversed());
+        };
+    }
+
+    private static List<Long> ids(CatalogIndex index, long[] categories, ListingSort sort) {
+        return boxed(index.page(categories, Long.MIN_VALUE, Long.MAX_VALUE, sort, 0, 100).listingIds());
+    }
+
+    private static List<Long> boxed(long[] ids) {
+        return LongStream.of(ids).boxed().toList();
+    }
+}
@@ -0,0 +1,94 @@
+package com.marketkosova.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DomainEventDispatcherTest {
+
+    private static final int EVENTS = 50;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<Long> handled = new CopyOnWriteArrayList<>();
+    // The outbox rows of the published events, as EventOutbox.findAfter would read them
+    private final ConcurrentSkipListMap<Long, EventOutbox.StoredEvent> rows = new ConcurrentSkipListMap<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DomainEventDispatcher dispatcher;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        release.countDown();
+        dispatcher.stop();
+    }
+
+    @Test
+    void fullQueueLeavesEventsToTheOutboxAndCatchUpDeliversThemInOrder() throws InterruptedException {
+        EventOutbox outbox = mock(EventOutbox.class);
+        when(outbox.findAfter(anyLong(), anyInt())).thenAnswer(call -> {
+            long afterId = call.getArgument(0);
+            int limit = call.getArgument(1);
+            return rows.tailMap(afterId, false).values().stream().limit(limit).toList();
+        });
+        dispatcher = new DomainEventDispatcher(List.of(new SlowConsumer()), outbox, meterRegistry);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 4);
+        ReflectionTestUtils.setField(dispatcher, "replayBatchSize", 7);
+        ReflectionTestUtils.setField(dispatcher, "offerTimeoutMillis", 10L);
+        dispatcher.start();
+
+        long start = System.nanoTime();
+        for (long id = 1; id <= EVENTS; id++) {
+            LocalDateTime now = LocalDateTime.now();
+            rows.put(id, new EventOutbox.StoredEvent(id, new ListingDeleted(id, null), now));
+            dispatcher.dispatch(id, new ListingDeleted(id, null), now);
+        }
+        // One publisher waits out the timeout; the rest go straight to the outbox
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2_000);
+        assertThat(meterRegistry.counter("events.consumer.skipped", "consumer", "SlowConsumer").count()).isPositive();
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (handled.size() < EVENTS && System.currentTimeMillis() < deadline) {
+            dispatcher.catchUp();
+            Thread.sleep(5);
+        }
+
+        assertThat(handled).containsExactlyElementsOf(LongStream.rangeClosed(1, EVENTS).boxed().toList());
+        dispatcher.dispatch(EVENTS + 1, new ListingDeleted(EVENTS + 1, null), LocalDateTime.now());
+        Thread.sleep(200);
+        assertThat(handled).endsWith((long) EVENTS + 1);
+    }
+
+    /** Handles nothing until the test releases it, so its queue fills up. */
+    private final class SlowConsumer implements DomainEventConsumer {
+
+        @Override
+        public boolean supports(DomainEvent event) {
+            return true;
+        }
+
+        @Override
+        public void onEvent(DomainEvent event) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handled.add(((ListingDeleted) event).listingId());
+        }
+    }
+}
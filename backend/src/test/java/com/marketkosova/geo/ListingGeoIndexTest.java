@@ -0,0 +1,37 @@
+package com.marketkosova.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListingGeoIndexTest {
+
+    private final ListingGeoIndex index = new ListingGeoIndex(null);
+
+    @Test
+    void wholeWorldBoxWalksOccupiedCellsAndMatchesTheTightBox() {
+        index.put(1, 42.6629, 21.1655);  // Prishtina
+        index.put(2, 42.2139, 20.7397);  // Prizren
+        index.put(3, 42.8914, 20.8660);  // Mitrovica
+        index.put(4, -33.8688, 151.2093); // far outside the tight box
+        GeoPoint center = new GeoPoint(42.6629, 21.1655);
+
+        List<ListingGeoIndex.Hit> world = index.within(center, -90, -180, 90, 180, 10);
+        List<ListingGeoIndex.Hit> kosovo = index.within(center, 41.8, 20.0, 43.3, 21.8, 10);
+
+        assertThat(world).extracting(ListingGeoIndex.Hit::listingId).containsExactly(1L, 3L, 2L, 4L);
+        assertThat(kosovo).extracting(ListingGeoIndex.Hit::listingId).containsExactly(1L, 3L, 2L);
+    }
+
+    @Test
+    void boxEdgesStillFilterPointsInPartlyCoveredCells() {
+        index.put(1, 42.66, 21.16);
+        index.put(2, 42.64, 21.16);
+        GeoPoint center = new GeoPoint(42.65, 21.16);
+
+        assertThat(index.within(center, 42.65, -180, 90, 180, 10))
+                .extracting(ListingGeoIndex.Hit::listingId).containsExactly(1L);
+    }
+}
@@ -0,0 +1,115 @@
+package com.marketkosova.loadtest;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query plan regression check for the {@link RepositoryQueries}. Runs each method once on the
+ * {@link SharedFixture}, captures the SQL it sends with the bound parameters, and runs that
+ * through H2's {@code EXPLAIN ANALYZE} in a rolled back transaction. A method fails when one
+ * of its statements reads more than {@code repository.max-rows} (default 5000) rows through a
+ * full table scan, or sorts more than that many rows without an index. Runs with
+ * {@code ./mvnw -Prepository-checks test}; {@code -Drepository.verbose=true} prints every plan.
+ */
+@Tag("repository-checks")
+class QueryPlanTest {
+
+    // Methods that read a whole table by design, and why
+    private static final Map<String, String> EXPECTED_SCANS = Map.of(
+            "ListingRepository.findAllCoordinates", "ListingGeoIndex.rebuild loads every geocoded listing");
+
+    // "/* public.listings.tableScan */" or "/* public.idx_listings_price: price >= ?1 */", then "/* scanCount: 20001 */"
+    private static final Pattern ACCESS = Pattern.compile("/\\* ([^:*]+?)(?::[^*]*)? \\*/\\s*(?:/\\*.*?\\*/\\s*)*?/\\* scanCount: (\\d+) \\*/",
+            Pattern.DOTALL);
+
+    @TestFactory
+    Stream<DynamicTest> noUnindexedScansOrSorts() {
+        long maxRows = Long.getLong("repository.max-rows", 5_000);
+        boolean verbose = Boolean.getBoolean("repository.verbose");
+        Random random = new Random(Long.getLong("repository.seed", 42));
+
+        ConfigurableApplicationContext context = SharedFixture.context();
+        StatementCapture capture = SharedFixture.capture();
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        return RepositoryQueries.queries(context).stream().map(query -> DynamicTest.dynamicTest(query.name(), () -> {
+            List<StatementCapture.Statement> statements =
+                    capture.capture(RepositoryQueries.inTransaction(query, transactionManager, random));
+            Set<String> problems = new LinkedHashSet<>();
+            for (StatementCapture.Statement statement : statements) {
+                String plan = explain(capture.target(), statement);
+                if (verbose) {
+                    System.out.printf("%s%n%s%n%n", query.name(), plan);
+                }
+                problems.addAll(problems(plan, maxRows));
+            }
+
+            assertThat(statements).as("statements sent by %s", query.name()).isNotEmpty();
+            if (!EXPECTED_SCANS.containsKey(query.name())) {
+                assertThat(problems).as("plan problems of %s; rerun with -Drepository.verbose=true for the plans",
+                        query.name()).isEmpty();
+            }
+        }));
+    }
+
+    private static String explain(DataSource dataSource, StatementCapture.Statement statement) throws SQLException {
+        // EXPLAIN ANALYZE runs the statement, so writes are rolled back like the call itself
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN ANALYZE " + statement.sql())) {
+                for (int i = 0; i < statement.parameters().size(); i++) {
+                    explain.setObject(i + 1, statement.parameters().get(i));
+                }
+                try (ResultSet result = explain.executeQuery()) {
+                    result.next();
+                    return result.getString(1);
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    static List<String> problems(String plan, long maxRows) {
+        List<String> problems = new ArrayList<>();
+        long drivingRows = -1;
+        Matcher access = ACCESS.matcher(plan);
+        while (access.find()) {
+            String source = access.group(1);
+            long rows = Long.parseLong(access.group(2));
+            if (drivingRows < 0) {
+                drivingRows = rows;
+            }
+            if (source.endsWith(".tableScan") && rows > maxRows) {
+                String table = source.substring(source.indexOf('.') + 1, source.lastIndexOf('.'));
+                problems.add("full scan of " + table + " (" + rows + " rows)");
+            }
+        }
+        // H2 marks an ORDER BY served by an index; anything else is sorted after reading
+        boolean sorted = plan.lines().anyMatch(line -> line.startsWith("ORDER BY"));
+        if (sorted && !plan.contains("/* index sorted */") && drivingRows > maxRows) {
+            problems.add("sort of " + drivingRows + " rows");
+        }
+        return problems;
+    }
+}
@@ -0,0 +1,60 @@
+package com.marketkosova.loadtest;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency regression check for the {@link RepositoryQueries}: calls every method on the
+ * {@link SharedFixture} and fails it when its p95 is over budget. Writes roll back, so the
+ * fixture stays as seeded. Runs with {@code ./mvnw -Prepository-checks test}; the budgets and
+ * call count can be overridden, e.g. {@code -Drepository.calls=500 -Drepository.budget-ms=50
+ * -Drepository.budget.findAllCoordinates=300}.
+ */
+@Tag("repository-checks")
+class RepositoryLatencyTest {
+
+    // Methods that read a whole table, or a week of messages, on the fixture; everything else gets repository.budget-ms
+    private static final Map<String, Double> DEFAULT_BUDGETS = Map.of(
+            "ListingRepository.findAllCoordinates", 200.0,
+            "MessageRepository.countPerListingAndDaySince", 100.0);
+
+    @TestFactory
+    Stream<DynamicTest> p95WithinBudget() {
+        int calls = Integer.getInteger("repository.calls", 300);
+        double defaultBudget = Double.parseDouble(System.getProperty("repository.budget-ms", "50"));
+        Random random = new Random(Long.getLong("repository.seed", 42));
+
+        ConfigurableApplicationContext context = SharedFixture.context();
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        return RepositoryQueries.queries(context).stream().map(query -> DynamicTest.dynamicTest(query.name(), () -> {
+            Runnable call = RepositoryQueries.inTransaction(query, transactionManager, random);
+            for (int i = 0; i < Math.max(10, calls / 5); i++) {
+                call.run();
+            }
+            LatencyRecorder recorder = new LatencyRecorder(query.name());
+            for (int i = 0; i < calls; i++) {
+                long start = System.nanoTime();
+                call.run();
+                recorder.record(System.nanoTime() - start, true);
+            }
+
+            String shortName = query.name().substring(query.name().indexOf('.') + 1);
+            String override = System.getProperty("repository.budget." + shortName);
+            double budget = override != null ? Double.parseDouble(override)
+                    : DEFAULT_BUDGETS.getOrDefault(query.name(), defaultBudget);
+            assertThat(recorder.percentileMillis(95))
+                    .as("p95 ms of %s (p50 %.2f, p99 %.2f)", query.name(),
+                            recorder.percentileMillis(50), recorder.percentileMillis(99))
+                    .isLessThanOrEqualTo(budget);
+        }));
+    }
+}
@@ -0,0 +1,31 @@
+package com.marketkosova.loadtest;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The {@link Fixture} for the repository checks, started and seeded once per test JVM and
+ * shared by every test class (the {@code test} profile names a single in-memory database).
+ * Its data source is wrapped by a {@link StatementCapture} for {@link QueryPlanTest}; outside
+ * {@link StatementCapture#capture} that is one proxy call per JDBC operation. It stays up
+ * until the JVM exits, when Spring's shutdown hook closes it.
+ */
+final class SharedFixture {
+
+    private static final StatementCapture CAPTURE = new StatementCapture();
+    private static ConfigurableApplicationContext context;
+
+    private SharedFixture() {
+    }
+
+    static synchronized ConfigurableApplicationContext context() {
+        if (context == null) {
+            context = Fixture.start(initializer -> initializer.getBeanFactory().addBeanPostProcessor(CAPTURE));
+        }
+        return context;
+    }
+
+    static StatementCapture capture() {
+        context();
+        return CAPTURE;
+    }
+}
@@ -0,0 +1,87 @@
+package com.marketkosova.service;
+
+import com.marketkosova.dto.ListingPatchRequest;
+import com.marketkosova.dto.ListingResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * How {@link ListingService#patchListing} treats coordinates: a pair is stored as given, half a
+ * pair is rejected, and only a changed location without coordinates is geocoded again.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:listing-patch;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.jobs.enabled=false"})
+@ActiveProfiles("test")
+class ListingServicePatchTest {
+
+    private static final double LATITUDE = 42.5;
+    private static final double LONGITUDE = 21.0;
+
+    @Autowired
+    private ListingService listingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long listingId;
+
+    @BeforeEach
+    void createListing() {
+        jdbcTemplate.update("MERGE INTO users (username, email, password, role) KEY (username) "
+                + "VALUES ('seller', 'seller@example.com', 'n/a', 'USER')");
+        Long sellerId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'seller'", Long.class);
+        jdbcTemplate.update("INSERT INTO listings (title, price, location, latitude, longitude, user_id, category_id) "
+                + "VALUES ('Bike', 100, 'Prishtina', ?, ?, ?, 1)", LATITUDE, LONGITUDE, sellerId);
+        listingId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM listings", Long.class);
+    }
+
+    @Test
+    void rejectsHalfACoordinatePairAndKeepsTheStoredOne() {
+        ListingPatchRequest request = new ListingPatchRequest();
+        request.setLatitude(10.0);
+
+        assertThatThrownBy(() -> listingService.patchListing(listingId, request, "seller", null))
+                .hasMessage("Latitude and longitude must be given together");
+        assertThat(storedCoordinates()).containsEntry("latitude", LATITUDE).containsEntry("longitude", LONGITUDE);
+    }
+
+    @Test
+    void storesACoordinatePairAsGiven() {
+        ListingPatchRequest request = new ListingPatchRequest();
+        request.setLatitude(10.0);
+        request.setLongitude(20.0);
+
+        ListingResponse patched = listingService.patchListing(listingId, request, "seller", null);
+
+        assertThat(patched.getLatitude()).isEqualTo(10.0);
+        assertThat(patched.getLongitude()).isEqualTo(20.0);
+    }
+
+    @Test
+    void geocodesOnlyAChangedLocation() {
+        ListingPatchRequest sameCity = new ListingPatchRequest();
+        sameCity.setLocation("Prishtina");
+        assertThat(listingService.patchListing(listingId, sameCity, "seller", null).getLatitude()).isEqualTo(LATITUDE);
+
+        ListingPatchRequest newCity = new ListingPatchRequest();
+        newCity.setLocation("Prizren");
+        ListingResponse patched = listingService.patchListing(listingId, newCity, "seller", null);
+
+        assertThat(patched.getLatitude()).isNotNull().isNotEqualTo(LATITUDE);
+        assertThat(patched.getLongitude()).isNotNull().isNotEqualTo(LONGITUDE);
+    }
+
+    private Map<String, Object> storedCoordinates() {
+        return jdbcTemplate.queryForMap("SELECT latitude, longitude FROM listings WHERE id = ?", listingId);
+    }
+}
@@ -0,0 +1,61 @@
+package com.marketkosova.service;
+
+import com.marketkosova.repository.ListingViewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The view count of {@link ListingService#getListingById}: the count flushed to
+ * {@code listing_stats} plus the views this node has not flushed yet, this one included.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:listing-view-count;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.jobs.enabled=false"})
+@ActiveProfiles("test")
+class ListingViewCountTest {
+
+    @Autowired
+    private ListingService listingService;
+
+    @Autowired
+    private ListingViewCounter listingViewCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long listingId;
+
+    @BeforeEach
+    void createListing() {
+        jdbcTemplate.update("MERGE INTO users (username, email, password, role) KEY (username) "
+                + "VALUES ('seller', 'seller@example.com', 'n/a', 'USER')");
+        Long sellerId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'seller'", Long.class);
+        Long lastId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM listings", Long.class);
+        jdbcTemplate.update("INSERT INTO listings (title, price, location, user_id, category_id) "
+                + "VALUES ('Lamp', 20, 'Prishtina', ?, 1)", sellerId);
+        jdbcTemplate.update(ListingViewRepository.COPY_FROM_LISTINGS_SQL, lastId);
+        listingId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM listings", Long.class);
+    }
+
+    @Test
+    void countsUnflushedViewsBeforeTheFirstFlush() {
+        listingService.getListingById(listingId);
+
+        assertThat(listingService.getListingById(listingId).getViewCount()).isEqualTo(2);
+    }
+
+    @Test
+    void addsPendingViewsToTheFlushedCount() {
+        listingService.getListingById(listingId);
+        listingService.getListingById(listingId);
+        listingViewCounter.flush();
+
+        assertThat(listingService.getListingById(listingId).getViewCount()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,157 @@
+package com.marketkosova.service;
+
+import com.marketkosova.dto.ConversationResponse;
+import com.marketkosova.event.DomainEventPublisher;
+import com.marketkosova.repository.ArchivedMessageRepository;
+import com.marketkosova.repository.ConversationRepository;
+import com.marketkosova.repository.ListingRepository;
+import com.marketkosova.repository.MessageRepository;
+import com.marketkosova.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link MessageService#getOrCreateConversation} must store one conversation per buyer and
+ * listing however many requests race for it, on one node or several.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:conversations;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.jobs.enabled=false"})
+@ActiveProfiles("test")
+class MessageServiceConversationTest {
+
+    private static final int REQUESTS = 16;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ArchivedMessageRepository archivedMessageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired
+    private DomainEventPublisher eventPublisher;
+
+    @Autowired
+    private ConversationMembershipCache membershipCache;
+
+    @Autowired
+    private MessageWriter messageWriter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private long listingId;
+
+    @BeforeEach
+    void createListing() {
+        jdbcTemplate.update("MERGE INTO users (username, email, password, role) KEY (username) "
+                + "VALUES ('seller', 'seller@example.com', 'n/a', 'USER')");
+        jdbcTemplate.update("MERGE INTO users (username, email, password, role) KEY (username) "
+                + "VALUES ('buyer', 'buyer@example.com', 'n/a', 'USER')");
+        Long sellerId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'seller'", Long.class);
+        jdbcTemplate.update("INSERT INTO listings (title, price, user_id, category_id) VALUES ('Bike', 100, ?, 1)",
+                sellerId);
+        listingId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM listings", Long.class);
+    }
+
+    @Test
+    void concurrentRequestsOnOneNodeShareOneConversation() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(REQUESTS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<ConversationResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                responses.add(pool.submit(() -> {
+                    start.await();
+                    return messageService.getOrCreateConversation(listingId, "buyer");
+                }));
+            }
+            start.countDown();
+
+            Set<Long> ids = responses.stream().map(MessageServiceConversationTest::idOf).collect(Collectors.toSet());
+            assertThat(ids).hasSize(1);
+            assertThat(conversationCount()).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void nodeThatLosesTheInsertRaceReadsTheWinnersConversation() {
+        // A second node: its own coalescing map, and a lookup that runs before the first node commits
+        AtomicBoolean staleRead = new AtomicBoolean(true);
+        MessageService otherNode = new MessageService(staleOnce(staleRead), messageRepository,
+                archivedMessageRepository, userRepository, listingRepository, eventPublisher, membershipCache,
+                messageWriter, transactionTemplate);
+
+        ConversationResponse first = messageService.getOrCreateConversation(listingId, "buyer");
+        ConversationResponse second = otherNode.getOrCreateConversation(listingId, "buyer");
+
+        assertThat(staleRead).isFalse();
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(conversationCount()).isEqualTo(1);
+    }
+
+    /** The repository, except that the first buyer/listing lookup finds nothing. */
+    private ConversationRepository staleOnce(AtomicBoolean staleRead) {
+        return (ConversationRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ConversationRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findByBuyerIdAndListingId") && staleRead.getAndSet(false)) {
+                        return Optional.empty();
+                    }
+                    try {
+                        return method.invoke(conversationRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private int conversationCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM conversations WHERE listing_id = ?", Integer.class,
+                listingId);
+    }
+
+    private static Long idOf(Future<ConversationResponse> response) {
+        try {
+            return response.get().getId();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -23,6 +23,7 @@ export default function EditListingPage({ params }: { params: Promise<{ id: stri
     const [imageFile, setImageFile] = useState<File | null>(null);
     const [imagePreview, setImagePreview] = useState<string | null>(null);
     const [currentImage, setCurrentImage] = useState<string | null>(null);
+    const [version, setVersion] = useState<number | null>(null);
     const [error, setError] = useState('');
     const [loading, setLoading] = useState(false);
     const [pageLoading, setPageLoading] = useState(true);
@@ -65,6 +66,7 @@ export default function EditListingPage({ params }: { params: Promise<{ id: stri
                 categoryId: listing.categoryId.toString(),
             });
             setCurrentImage(listing.image);
+            setVersion(listing.version);
         } catch (err) {
             console.error('Failed to fetch listing', err);
         } finally {
@@ -98,8 +100,12 @@ export default function EditListingPage({ params }: { params: Promise<{ id: stri
                 data.append('imageFile', imageFile);
             }
 
+            // If-Match makes the save fail (412) instead of overwriting someone else's edit
             await api.put(`/api/listings/${id}`, data, {
-                headers: { 'Content-Type': 'multipart/form-data' },
+                headers: {
+                    'Content-Type': 'multipart/form-data',
+                    ...(version !== null ? { 'If-Match': `"${version}"` } : {}),
+                },
             });
             router.push(`/listings/${id}`);
         } catch (err: unknown) {
@@ -4,6 +4,7 @@ import { useState, useEffect, use } from 'react';
 import { useRouter } from 'next/navigation';
 import Link from 'next/link';
 import api from '@/lib/api';
+import ListingCard from '@/components/ListingCard';
 import { Listing } from '@/lib/types';
 import { useAuth } from '@/context/AuthContext';
 
@@ -17,9 +18,11 @@ export default function ListingDetailPage({ params }: { params: Promise<{ id: st
     const [loading, setLoading] = useState(true);
     const [deleting, setDeleting] = useState(false);
     const [messagingLoading, setMessagingLoading] = useState(false);
+    const [similar, setSimilar] = useState<Listing[]>([]);
 
     useEffect(() => {
         fetchListing();
+        fetchSimilar();
     }, [id]);
 
     const fetchListing = async () => {
@@ -33,6 +36,15 @@ export default function ListingDetailPage({ params }: { params: Promise<{ id: st
         }
     };
 
+    const fetchSimilar = async () => {
+        try {
+            const res = await api.get(`/api/listings/${id}/similar`, { params: { view: 'summary', limit: 4 } });
+            setSimilar(res.data);
+        } catch (err) {
+            console.error('Failed to fetch similar listings', err);
+        }
+    };
+
     const handleDelete = async () => {
         if (!confirm('Are you sure you want to delete this listing?')) return;
 
@@ -221,6 +233,18 @@ export default function ListingDetailPage({ params }: { params: Promise<{ id: st
                     <p className="text-gray-300 leading-relaxed whitespace-pre-wrap">{listing.description}</p>
                 </div>
             )}
+
+            {/* Similar listings */}
+            {similar.length > 0 && (
+                <div className="mt-10">
+                    <h2 className="text-xl font-semibold text-white mb-4">Similar listings</h2>
+                    <div className="grid grid-cols-1 sm:grid-cols-2 lg:grid-cols-3 xl:grid-cols-4 gap-6">
+                        {similar.map((item) => (
+                            <ListingCard key={item.id} listing={item} />
+                        ))}
+                    </div>
+                </div>
+            )}
         </div>
     );
 }
@@ -1,9 +1,9 @@
 'use client';
 
-import { useState, useEffect } from 'react';
+import { useState, useEffect, useRef } from 'react';
 import { useRouter } from 'next/navigation';
 import { useAuth } from '@/context/AuthContext';
-import api from '@/lib/api';
+import api, { newIdempotencyKey } from '@/lib/api';
 import { Category } from '@/lib/types';
 
 export default function CreateListingPage() {
@@ -21,6 +21,8 @@ export default function CreateListingPage() {
     const [imagePreview, setImagePreview] = useState<string | null>(null);
     const [error, setError] = useState('');
     const [loading, setLoading] = useState(false);
+    // One key per form, so submitting again after a lost response cannot create a duplicate
+    const idempotencyKeyRef = useRef(newIdempotencyKey());
 
     useEffect(() => {
         if (!authLoading && !isAuthenticated) {
@@ -68,7 +70,10 @@ export default function CreateListingPage() {
             }
 
             await api.post('/api/listings', data, {
-                headers: { 'Content-Type': 'multipart/form-data' },
+                headers: {
+                    'Content-Type': 'multipart/form-data',
+                    'Idempotency-Key': idempotencyKeyRef.current,
+                },
             });
             router.push('/listings/my');
         } catch (err: unknown) {
@@ -3,11 +3,19 @@
 import { useState, useEffect, useRef, use } from 'react';
 import { useRouter } from 'next/navigation';
 import Link from 'next/link';
-import api from '@/lib/api';
+import api, { newIdempotencyKey } from '@/lib/api';
 import { Message, Conversation } from '@/lib/types';
 import { useAuth } from '@/context/AuthContext';
 
 const API_URL = process.env.NEXT_PUBLIC_API_URL || 'http://localhost:8080';
+const PAGE_SIZE = 100;
+
+// Merges a page into the loaded messages, keeping them unique and ordered by id
+const mergeMessages = (current: Message[], page: Message[]) => {
+    const byId = new Map(current.map(m => [m.id, m]));
+    page.forEach(m => byId.set(m.id, m));
+    return Array.from(byId.values()).sort((a, b) => a.id - b.id);
+};
 
 export default function ChatPage({ params }: { params: Promise<{ id: string }> }) {
     const { id } = use(params);
@@ -20,6 +28,12 @@ export default function ChatPage({ params }: { params: Promise<{ id: string }> }
     const [sending, setSending] = useState(false);
     const messagesEndRef = useRef<HTMLDivElement>(null);
     const inputRef = useRef<HTMLInputElement>(null);
+    const lastReadIdRef = useRef<number | null>(null);
+    const lastScrolledIdRef = useRef<number | null>(null);
+    // Kept until the message is delivered, so resending after an error cannot post it twice
+    const sendKeyRef = useRef<string | null>(null);
+    const [hasOlder, setHasOlder] = useState(false);
+    const [loadingOlder, setLoadingOlder] = useState(false);
 
     useEffect(() => {
         if (!authLoading && !isAuthenticated) {
@@ -39,7 +53,12 @@ export default function ChatPage({ params }: { params: Promise<{ id: string }> }
     }, [isAuthenticated, id]);
 
     useEffect(() => {
-        scrollToBottom();
+        // Only follow new messages; loading older history keeps the scroll position
+        const lastId = messages.length > 0 ? messages[messages.length - 1].id : null;
+        if (lastId !== lastScrolledIdRef.current) {
+            lastScrolledIdRef.current = lastId;
+            scrollToBottom();
+        }
     }, [messages]);
 
     const fetchData = async () => {
@@ -50,6 +69,8 @@ export default function ChatPage({ params }: { params: Promise<{ id: string }> }
             ]);
             setConversation(convRes.data);
             setMessages(msgRes.data);
+            setHasOlder(msgRes.data.length === PAGE_SIZE);
+            markAsRead(msgRes.data);
         } catch (err) {
             console.error('Failed to fetch chat data', err);
             router.push('/messages');
@@ -61,12 +82,38 @@ export default function ChatPage({ params }: { params: Promise<{ id: string }> }
     const fetchMessages = async () => {
         try {
             const res = await api.get(`/api/messages/conversations/${id}/messages`);
-            setMessages(res.data);
+            setMessages(prev => mergeMessages(prev, res.data));
+            markAsRead(res.data);
         } catch (err) {
             console.error('Failed to fetch messages', err);
         }
     };
 
+    const loadOlder = async () => {
+        if (messages.length === 0 || loadingOlder) return;
+        setLoadingOlder(true);
+        try {
+            const res = await api.get(`/api/messages/conversations/${id}/messages`, {
+                params: { beforeId: messages[0].id, limit: PAGE_SIZE }
+            });
+            setMessages(prev => mergeMessages(prev, res.data));
+            setHasOlder(res.data.length === PAGE_SIZE);
+        } catch (err) {
+            console.error('Failed to load older messages', err);
+        } finally {
+            setLoadingOlder(false);
+        }
+    };
+
+    const markAsRead = (loaded: Message[]) => {
+        if (loaded.length === 0) return;
+        const lastId = loaded[loaded.length - 1].id;
+        if (lastReadIdRef.current === lastId) return;
+        lastReadIdRef.current = lastId;
+        api.post(`/api/messages/conversations/${id}/read`, null, { params: { messageId: lastId } })
+            .catch(err => console.error('Failed to mark conversation as read', err));
+    };
+
     const scrollToBottom = () => {
         messagesEndRef.current?.scrollIntoView({ behavior: 'smooth' });
     };
@@ -76,11 +123,13 @@ export default function ChatPage({ params }: { params: Promise<{ id: string }> }
         if (!newMessage.trim() || sending) return;
 
         setSending(true);
+        sendKeyRef.current ??= newIdempotencyKey();
         try {
             const res = await api.post(`/api/messages/conversations/${id}/messages`, {
                 content: newMessage.trim()
-            });
-            setMessages(prev => [...prev, res.data]);
+            }, { headers: { 'Idempotency-Key': sendKeyRef.current } });
+            setMessages(prev => mergeMessages(prev, [res.data]));
+            sendKeyRef.current = null;
             setNewMessage('');
             inputRef.current?.focus();
         } catch (err) {
@@ -199,6 +248,17 @@ export default function ChatPage({ params }: { params: Promise<{ id: string }> }
                     </div>
                 ) : (
                     <div className="space-y-6">
+                        {hasOlder && (
+                            <div className="flex justify-center">
+                                <button
+                                    onClick={loadOlder}
+                                    disabled={loadingOlder}
+                                    className="text-xs text-purple-400 hover:text-purple-300 disabled:text-gray-500 bg-slate-800 px-3 py-1 rounded-full transition-colors"
+                                >
+                                    {loadingOlder ? 'Loading...' : 'Load earlier messages'}
+                                </button>
+                            </div>
+                        )}
                         {groupedMessages.map((group, gi) => (
                             <div key={gi}>
                                 <div className="flex items-center justify-center mb-4">
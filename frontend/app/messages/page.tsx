@@ -130,9 +130,16 @@ export default function MessagesPage() {
                                         </span>
                                     </div>
                                     <p className="text-gray-500 text-xs mb-1 truncate">{conv.listingTitle}</p>
-                                    <p className="text-gray-400 text-sm truncate">
-                                        {conv.lastMessage || 'No messages yet — say hello!'}
-                                    </p>
+                                    <div className="flex items-center gap-2">
+                                        <p className={`text-sm truncate flex-1 ${conv.unreadCount > 0 ? 'text-white font-medium' : 'text-gray-400'}`}>
+                                            {conv.lastMessage || 'No messages yet — say hello!'}
+                                        </p>
+                                        {conv.unreadCount > 0 && (
+                                            <span className="bg-pink-600 text-white text-xs font-semibold rounded-full px-2 py-0.5 flex-shrink-0">
+                                                {conv.unreadCount}
+                                            </span>
+                                        )}
+                                    </div>
                                 </div>
 
                                 {/* Arrow */}
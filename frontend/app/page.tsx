@@ -29,10 +29,12 @@ export default function HomePage() {
   const fetchListings = async (categoryId?: number, search?: string) => {
     setLoading(true);
     try {
-      const params: Record<string, string | number> = {};
+      // Cards don't show the description, so only the teaser is fetched
+      const params: Record<string, string | number> = { view: 'summary' };
       if (categoryId) params.categoryId = categoryId;
       if (search) params.search = search;
-      const res = await api.get('/api/listings', { params });
+      // Browsing without a search is served from the precomputed feed snapshots
+      const res = await api.get(search ? '/api/listings' : '/api/listings/feed', { params });
       setListings(res.data);
     } catch (err) {
       console.error('Failed to fetch listings', err);
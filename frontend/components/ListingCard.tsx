@@ -72,7 +72,10 @@ export default function ListingCard({ listing }: ListingCardProps) {
                             </svg>
                             <span className="truncate max-w-[120px]">{listing.location || 'Kosovo'}</span>
                         </div>
-                        <span>{timeAgo(listing.createdAt)}</span>
+                        <span>
+                            {listing.viewCount !== undefined && `${listing.viewCount} views · `}
+                            {timeAgo(listing.createdAt)}
+                        </span>
                     </div>
                 </div>
             </div>
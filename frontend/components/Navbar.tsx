@@ -2,11 +2,28 @@
 
 import Link from 'next/link';
 import { useAuth } from '@/context/AuthContext';
-import { useState } from 'react';
+import { useState, useEffect } from 'react';
+import api from '@/lib/api';
 
 export default function Navbar() {
     const { user, isAuthenticated, isAdmin, logout } = useAuth();
     const [mobileMenuOpen, setMobileMenuOpen] = useState(false);
+    const [unreadCount, setUnreadCount] = useState(0);
+
+    useEffect(() => {
+        if (!isAuthenticated) {
+            setUnreadCount(0);
+            return;
+        }
+        const fetchUnreadCount = () => {
+            api.get('/api/messages/unread-count')
+                .then(res => setUnreadCount(res.data.unreadCount))
+                .catch(() => {});
+        };
+        fetchUnreadCount();
+        const interval = setInterval(fetchUnreadCount, 30000);
+        return () => clearInterval(interval);
+    }, [isAuthenticated]);
 
     return (
         <nav className="bg-gradient-to-r from-slate-900 via-purple-900 to-slate-900 border-b border-purple-500/20 sticky top-0 z-50 backdrop-blur-xl">
@@ -40,6 +57,11 @@ export default function Navbar() {
                                         <path strokeLinecap="round" strokeLinejoin="round" strokeWidth={2} d="M8 12h.01M12 12h.01M16 12h.01M21 12c0 4.418-4.03 8-9 8a9.863 9.863 0 01-4.255-.949L3 20l1.395-3.72C3.512 15.042 3 13.574 3 12c0-4.418 4.03-8 9-8s9 3.582 9 8z" />
                                     </svg>
                                     Messages
+                                    {unreadCount > 0 && (
+                                        <span className="bg-pink-600 text-white text-xs font-semibold rounded-full px-1.5 min-w-[1.25rem] text-center">
+                                            {unreadCount}
+                                        </span>
+                                    )}
                                 </Link>
                             </>
                         )}
@@ -29,6 +29,7 @@ export function AuthProvider({ children }: { children: ReactNode }) {
             } catch {
                 localStorage.removeItem('user');
                 localStorage.removeItem('token');
+                localStorage.removeItem('refreshToken');
             }
         }
         setLoading(false);
@@ -44,9 +45,11 @@ export function AuthProvider({ children }: { children: ReactNode }) {
             email: authData.email,
             role: authData.role,
             token: authData.token,
+            refreshToken: authData.refreshToken,
         };
 
         localStorage.setItem('token', authData.token);
+        localStorage.setItem('refreshToken', authData.refreshToken);
         localStorage.setItem('user', JSON.stringify(userData));
         setUser(userData);
     };
@@ -61,15 +64,22 @@ export function AuthProvider({ children }: { children: ReactNode }) {
             email: authData.email,
             role: authData.role,
             token: authData.token,
+            refreshToken: authData.refreshToken,
         };
 
         localStorage.setItem('token', authData.token);
+        localStorage.setItem('refreshToken', authData.refreshToken);
         localStorage.setItem('user', JSON.stringify(userData));
         setUser(userData);
     };
 
     const logout = () => {
+        const refreshToken = localStorage.getItem('refreshToken');
+        if (refreshToken) {
+            api.post('/api/auth/logout', { refreshToken }).catch(() => {});
+        }
         localStorage.removeItem('token');
+        localStorage.removeItem('refreshToken');
         localStorage.removeItem('user');
         setUser(null);
     };
@@ -25,18 +25,58 @@ api.interceptors.request.use(
     }
 );
 
-// Response interceptor to handle auth errors
+// Single in-flight refresh shared by all requests that failed with 401
+let refreshPromise: Promise<string | null> | null = null;
+
+const refreshAccessToken = async (): Promise<string | null> => {
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (!refreshToken) {
+        return null;
+    }
+    try {
+        const res = await axios.post(`${API_BASE_URL}/api/auth/refresh`, { refreshToken });
+        localStorage.setItem('token', res.data.token);
+        localStorage.setItem('refreshToken', res.data.refreshToken);
+        return res.data.token;
+    } catch {
+        return null;
+    }
+};
+
+const clearSession = () => {
+    localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
+    localStorage.removeItem('user');
+};
+
+// Response interceptor to refresh expired access tokens and handle auth errors
 api.interceptors.response.use(
     (response) => response,
-    (error) => {
-        if (error.response?.status === 401) {
-            if (typeof window !== 'undefined') {
-                localStorage.removeItem('token');
-                localStorage.removeItem('user');
+    async (error) => {
+        const original = error.config;
+        if (error.response?.status === 401 && typeof window !== 'undefined') {
+            if (original && !original._retry && !original.url?.startsWith('/api/auth/')) {
+                original._retry = true;
+                refreshPromise = refreshPromise ?? refreshAccessToken().finally(() => {
+                    refreshPromise = null;
+                });
+                const token = await refreshPromise;
+                if (token) {
+                    original.headers.Authorization = `Bearer ${token}`;
+                    return api(original);
+                }
             }
+            clearSession();
         }
         return Promise.reject(error);
     }
 );
 
+// Key for POSTs the server should execute only once, even if the request is retried.
+// crypto.randomUUID is missing outside secure contexts (plain http on the LAN).
+export const newIdempotencyKey = (): string => {
+    const bytes = crypto.getRandomValues(new Uint8Array(16));
+    return Array.from(bytes, b => b.toString(16).padStart(2, '0')).join('');
+};
+
 export default api;
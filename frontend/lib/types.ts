@@ -4,10 +4,12 @@ export interface User {
   email: string;
   role: string;
   token: string;
+  refreshToken: string;
 }
 
 export interface AuthResponse {
   token: string;
+  refreshToken: string;
   username: string;
   email: string;
   role: string;
@@ -42,6 +44,11 @@ export interface Listing {
   username: string;
   categoryId: number;
   categoryName: string;
+  latitude: number | null;
+  longitude: number | null;
+  version: number;
+  distanceKm?: number;
+  viewCount?: number;
 }
 
 export interface UserInfo {
@@ -69,6 +76,8 @@ export interface Conversation {
   lastMessage: string | null;
   lastMessageAt: string | null;
   createdAt: string;
+  unreadCount: number;
+  otherLastReadMessageId: number | null;
 }
 
 export interface Message {